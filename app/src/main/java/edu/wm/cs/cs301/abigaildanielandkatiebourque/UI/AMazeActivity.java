@@ -114,6 +114,11 @@ public class AMazeActivity extends AppCompatActivity {
         intent.putExtra("driver", drive);
         intent.putExtra("size", String.valueOf(size));
         intent.putExtra("button", "revisit");
+        // the same seed gives the same maze, which is served from the cache if it is still there
+        Integer seed = GeneratingActivity.getLastSeed(this, size, build);
+        if (seed != null) {
+            intent.putExtra("seed", seed.intValue());
+        }
         // start the activity
         music.stop();
         startActivity(intent);
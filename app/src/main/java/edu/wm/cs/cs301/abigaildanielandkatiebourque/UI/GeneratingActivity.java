@@ -3,10 +3,19 @@ package edu.wm.cs.cs301.abigaildanielandkatiebourque.UI;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.Maze;
+import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.MazeCache;
+import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.GenerationArena;
 import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.Order;
+import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.ProgressiveOrder;
 import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.MazeFactory;
+import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.MazePrefetcher;
+import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.SeedReportingOrder;
+import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.SeededOrder;
 import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.StubOrder;
 import edu.wm.cs.cs301.abigaildanielandkatiebourque.gui.Constants;
 import edu.wm.cs.cs301.abigaildanielandkatiebourque.gui.MazeFileReader;
@@ -16,7 +25,10 @@ import android.media.MediaPlayer;
 import android.os.Handler;
 import android.os.Bundle;
 import android.widget.Button;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.util.Log;
 import android.view.View;
 import android.widget.ProgressBar;
@@ -25,7 +37,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import edu.wm.cs.cs301.abigaildanielandkatiebourque.R;
 
 
-public class GeneratingActivity extends AppCompatActivity implements Order{
+public class GeneratingActivity extends AppCompatActivity implements SeedReportingOrder, ProgressiveOrder{
 
     //inits
     private String maze0 = "maze0";
@@ -39,8 +51,21 @@ public class GeneratingActivity extends AppCompatActivity implements Order{
 
     private ProgressBar bar;
     protected Handler handler;
+    // latest progress from the builder thread, the UI thread picks it up with a single runnable
+    private final AtomicInteger progress = new AtomicInteger(0);
+    private final AtomicBoolean progressPosted = new AtomicBoolean(false);
+    private final Runnable progressUpdate = new Runnable() {
+        @Override
+        public void run() {
+            progressPosted.set(false);
+            int percentage = progress.get();
+            Log.v(tag, "loading " + percentage);
+            bar.setProgress(percentage);
+        }
+    };
     private MazeFactory fac = new MazeFactory();
     private Integer skillLevel;
+    private Integer seed; // seed of the maze, null as long as it is not known
     private String build;
     private String driver;
     private StubOrder order;
@@ -49,6 +74,8 @@ public class GeneratingActivity extends AppCompatActivity implements Order{
     //static
     public static Maze config;
     private static String tags = "GeneratingActivity";
+    // remembers the seed of the last maze per skill level and builder for revisits
+    private static final String PREFERENCES = "mazes";
 
     MediaPlayer music;
     Button menu;
@@ -83,6 +110,10 @@ public class GeneratingActivity extends AppCompatActivity implements Order{
             case "Prim": builder = Order.Builder.Prim;
         }
         driver = info.getStringExtra("driver");
+        // a revisit passes the seed of the last maze, see getLastSeed()
+        if(info.hasExtra("seed")) {
+            seed = info.getIntExtra("seed", 0);
+        }
 
         //return to menu button
         menu = findViewById(R.id.gen_menu);
@@ -101,7 +132,7 @@ public class GeneratingActivity extends AppCompatActivity implements Order{
         bar = findViewById(R.id.gen_bar);
         handler = new Handler();
         if(button.equals("explore") || skillLevel >= 4) {
-            fac.order(this);
+            orderMaze();
         }
         else if(button.equals("revisit")){
 
@@ -124,12 +155,69 @@ public class GeneratingActivity extends AppCompatActivity implements Order{
                 FileInputStream file = openFileInput(maze);
                 deliver(loadMazeConfigurationFromFile(file));
             } catch (FileNotFoundException e) {
-                fac.order(this);
+                orderMaze();
             }
 
         }
     }
 
+    /**
+     * orders the maze with the seed of a revisit from the factory, which may have it in its cache,
+     * otherwise takes a ready maze from the prefetch pool if there is one
+     * or orders a maze with a new seed from the factory
+     */
+    private void orderMaze(){
+        fac.setCache(MazeCache.getCache());
+        if(seed == null && MazePrefetcher.getPrefetcher().take(this)) {
+            return; // the pool told the seed of the maze with setSeed
+        }
+        if(seed == null) {
+            seed = new Random().nextInt();
+        }
+        fac.order(new SeededMazeOrder());
+    }
+
+    /**
+     * order for the maze with the current seed,
+     * passes everything else on to the activity
+     */
+    private class SeededMazeOrder implements SeededOrder, ProgressiveOrder {
+        @Override
+        public int getSeed() {
+            return seed;
+        }
+
+        @Override
+        public int getSkillLevel() {
+            return GeneratingActivity.this.getSkillLevel();
+        }
+
+        @Override
+        public Builder getBuilder() {
+            return GeneratingActivity.this.getBuilder();
+        }
+
+        @Override
+        public boolean isPerfect() {
+            return GeneratingActivity.this.isPerfect();
+        }
+
+        @Override
+        public void deliver(Maze mazeConfig) {
+            GeneratingActivity.this.deliver(mazeConfig);
+        }
+
+        @Override
+        public void treeCompleted(Maze mazeConfig) {
+            GeneratingActivity.this.treeCompleted(mazeConfig);
+        }
+
+        @Override
+        public void updateProgress(int percentage) {
+            GeneratingActivity.this.updateProgress(percentage);
+        }
+    }
+
     private Maze loadMazeConfigurationFromFile(FileInputStream file){
         MazeFileReader read = new MazeFileReader(file);
         return read.getMazeConfiguration();
@@ -138,6 +226,10 @@ public class GeneratingActivity extends AppCompatActivity implements Order{
     public static void setConfig(Maze configur){
         if(configur != null) {
             Log.v(tags, "configuration occurring");
+            // the previous maze is done, its arrays can be reused for the next one
+            if(config != null && config != configur) {
+                GenerationArena.getArena().release(config);
+            }
             config = configur;
         }
     }
@@ -174,6 +266,11 @@ public class GeneratingActivity extends AppCompatActivity implements Order{
         return skillLevel;
     }
 
+    @Override
+    public void setSeed(int seed) {
+        this.seed = seed;
+    }
+
     @Override
     public Builder getBuilder() {
         return builder;
@@ -184,11 +281,63 @@ public class GeneratingActivity extends AppCompatActivity implements Order{
         return false;
     }
 
+    /**
+     * releases mazes kept in memory for later orders
+     * if the system runs low on memory
+     * @param level
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if(level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            MazeCache.getCache().clear();
+            MazePrefetcher.getPrefetcher().clear();
+            GenerationArena.getArena().clear();
+        }
+        else {
+            MazeCache.getCache().trimToSize(MazeCache.getCache().getSize()/2);
+        }
+    }
+
+    /**
+     * gives the seed of the last maze that was delivered for the given skill level and builder,
+     * such that a revisit can order the same maze and get it from the cache
+     * @param context context for the shared preferences
+     * @param skillLevel the skill level
+     * @param build the builder as selected in AMazeActivity
+     * @return the seed, null if no maze has been delivered yet
+     */
+    public static Integer getLastSeed(Context context, int skillLevel, String build) {
+        SharedPreferences preferences = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+        String key = getSeedKey(skillLevel, build);
+        return preferences.contains(key) ? preferences.getInt(key, 0) : null;
+    }
+
+    private static String getSeedKey(int skillLevel, String build) {
+        return "seed_" + skillLevel + "_" + build;
+    }
+
     @Override
     public void deliver(Maze mazeConfig) {
 
+        // remember the seed such that a revisit gets the same maze
+        if(seed != null) {
+            getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE).edit()
+                    .putInt(getSeedKey(skillLevel, build), seed).apply();
+        }
         setConfig(mazeConfig);
+        // the maze is playable right away, its file is stored once the tree is complete
+        switchtoPlaying();
+    }
 
+    /**
+     * stores mazes of low skill levels to file once their tree is complete
+     * @param mazeConfig the delivered maze
+     */
+    @Override
+    public void treeCompleted(Maze mazeConfig) {
+        if (mazeConfig != config)
+            return; // replaced in the meantime
         if(getSkillLevel() == 0){
             // copy the maze to file here
             File maze00 = new File(getFilesDir(), maze0);
@@ -214,21 +363,19 @@ public class GeneratingActivity extends AppCompatActivity implements Order{
             MazeFileWriter.store(maze03, config.getWidth(), config.getHeight(), Constants.SKILL_ROOMS[3], Constants.SKILL_PARTCT[3],
                     config.getRootnode(), config.getFloorplan(), config.getMazedists().getAllDistanceValues(), config.getStartingPosition()[0], config.getStartingPosition()[1]);
         }
-        switchtoPlaying();
     }
 
+    /**
+     * stores the percentage and posts the progress update to the UI thread
+     * unless an update is already waiting there
+     * @param percentage of job completion
+     */
     @Override
     public void updateProgress(final int percentage) {
-        handler.post(new Runnable() {
-            @Override
-            public void run() {
-
-                Log.v(tag, "loading " + percentage);
-                bar.setProgress(percentage);
-
-            }
-        });
-
+        progress.set(percentage);
+        if(progressPosted.compareAndSet(false, true)) {
+            handler.post(progressUpdate);
+        }
     }
 }
 
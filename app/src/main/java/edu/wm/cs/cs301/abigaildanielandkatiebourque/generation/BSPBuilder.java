@@ -2,6 +2,7 @@ package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
 
 
 import  edu.wm.cs.cs301.abigaildanielandkatiebourque.gui.Constants;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 
@@ -25,6 +26,10 @@ public class BSPBuilder {
     // only usage is in updateProgressBar to estimate progress made in the BSP tree construction
     int partiters = 0; // relocated from MazeBuilder attribute partiters here.
     private final Order order;        // current order
+    private final CancellationToken token; // checked during wall extraction and node generation
+    private ProgressReporter progress;      // optional, null if progress goes directly to the order
+    private int totalWalls;                 // number of walls at the start of node generation
+    private int doneWalls;                  // number of walls that ended up in leaves so far
 
     /**
      * Constructor
@@ -38,8 +43,25 @@ public class BSPBuilder {
      * @param expectedPartiters
      */
     public BSPBuilder(Order order, Distance dists, Floorplan floorplan, int width, int height, int colchange, int expectedPartiters) {
+        this(order, dists, floorplan, width, height, colchange, expectedPartiters, new CancellationToken());
+    }
+
+    /**
+     * Constructor with a token to stop the computation if the order is cancelled
+     *
+     * @param order
+     * @param dists
+     * @param floorplan
+     * @param width
+     * @param height
+     * @param colchange
+     * @param expectedPartiters
+     * @param token
+     */
+    public BSPBuilder(Order order, Distance dists, Floorplan floorplan, int width, int height, int colchange, int expectedPartiters, CancellationToken token) {
         super();
         this.order = order;
+        this.token = token;
         this.dists = dists;
         this.floorplan = floorplan;
         this.width = width;
@@ -60,20 +82,103 @@ public class BSPBuilder {
      * @throws InterruptedException
      */
     private BSPNode genNodes(ArrayList<Wall> sl) throws InterruptedException {
-        // if there is no wall with a partition bit set to false, there is nothing else to do and we are at a leaf node
-        if (countNonPartitions(sl) == 0)
-            return new BSPLeaf(sl);
-        // from the ones that have a partition bit set to false, pick a candidate with a low grade
-        Wall pe = findPartitionCandidate(sl);
-        // work on wall pe
-        // mark pe as partitioned
-        pe.setPartition(true);
+        return buildTree(sl, false);
+    }
+
+    /**
+     * Builds the tree for the given walls depth first, left branch before right branch.
+     * Large mazes give deep trees, so the recursion is unrolled onto an explicit stack
+     * of nodes whose right branch or both branches are still missing.
+     *
+     * @param sl walls of the root node
+     * @param fallback true to split at middle walls, see generateFallbackNodes, false to split at graded walls
+     * @return root node of the tree
+     * @throws InterruptedException
+     */
+    private BSPNode buildTree(ArrayList<Wall> sl, boolean fallback) throws InterruptedException {
+        final ArrayDeque<PendingBranch> stack = new ArrayDeque<PendingBranch>();
+        ArrayList<Wall> walls = sl; // walls of the next node to build, null if a node has just been completed
+        BSPNode done = null;        // node that has just been completed
+        while (true) {
+            if (null != walls) {
+                done = null;
+                final Wall pe;
+                if (fallback) {
+                    token.check();
+                    pe = findMiddleWall(walls);
+                } else {
+                    token.checkpoint(); // background builds wait here for interactive builds
+                    // if there is no wall with a partition bit set to false, there is nothing else to do and we are at a leaf node
+                    // otherwise pick a candidate with a low grade from the ones that have a partition bit set to false
+                    pe = (countNonPartitions(walls) == 0) ? null : findPartitionCandidate(walls);
+                }
+                if (null == pe)
+                    done = newLeaf(walls, fallback);
+                else {
+                    // work on wall pe
+                    // mark pe as partitioned
+                    pe.setPartition(true);
+                    final ArrayList<Wall> lsl = new ArrayList<Wall>();
+                    final ArrayList<Wall> rsl = new ArrayList<Wall>();
+                    split(walls, pe, lsl, rsl);
+                    if (lsl.size() == 0)
+                        done = newLeaf(rsl, fallback);
+                    else if (rsl.size() == 0)
+                        done = newLeaf(lsl, fallback);
+                    else {
+                        // continue with the left branch, the right branch waits on the stack
+                        stack.push(new PendingBranch(pe, rsl));
+                        walls = lsl;
+                        continue;
+                    }
+                }
+                walls = null;
+            }
+            // a node is done, it is the left or right branch of the node on top of the stack
+            if (stack.isEmpty())
+                return done;
+            final PendingBranch top = stack.peek();
+            if (null == top.left) {
+                top.left = done;
+                walls = top.right;
+                top.right = null;
+            } else {
+                stack.pop();
+                done = new BSPBranch(top.pe.getStartPositionX(), top.pe.getStartPositionY(),
+                        top.pe.getExtensionX(), top.pe.getExtensionY(), top.left, done);
+            }
+        }
+    }
+
+    /**
+     * A branch of the tree under construction, see buildTree.
+     */
+    private static final class PendingBranch {
+        final Wall pe;           // partition wall of the branch
+        ArrayList<Wall> right;   // walls of the right branch till its construction starts
+        BSPNode left;            // left branch once it is done
+
+        PendingBranch(Wall pe, ArrayList<Wall> right) {
+            this.pe = pe;
+            this.right = right;
+        }
+    }
+
+    /**
+     * Splits the given walls into the walls on the left and on the right of the partition wall.
+     * Walls that cross the line of the partition wall are cut in two.
+     * Walls on that line are marked as partitioned.
+     *
+     * @param sl walls to split
+     * @param pe partition wall
+     * @param lsl receives the walls on the left
+     * @param rsl receives the walls on the right
+     */
+    private void split(ArrayList<Wall> sl, Wall pe, ArrayList<Wall> lsl, ArrayList<Wall> rsl) {
         final int x = pe.getStartPositionX();
         final int y = pe.getStartPositionY();
         final int dx = pe.getExtensionX();
         final int dy = pe.getExtensionY();
-        final ArrayList<Wall> lsl = new ArrayList<Wall>();
-        final ArrayList<Wall> rsl = new ArrayList<Wall>();
         for (int i = 0; i != sl.size(); i++) {
             // MEMO: code very similar to Seg.calculateGrade method
             Wall se = (Wall) sl.get(i);
@@ -83,10 +188,11 @@ public class BSPBuilder {
             int sendy = se.getEndPositionY();
             int df2x = sendx - x;
             int df2y = sendy - y;
-            int nx = dy;
-            int ny = -dx;
-            int dot1 = df1x * nx + df1y * ny;
-            int dot2 = df2x * nx + df2y * ny;
+            // products of map coordinates overflow an int for large mazes
+            long nx = dy;
+            long ny = -dx;
+            long dot1 = df1x * nx + df1y * ny;
+            long dot2 = df2x * nx + df2y * ny;
             if (getSign(dot1) != getSign(dot2)) {
                 if (dot1 == 0)
                     dot1 = dot2;
@@ -127,11 +233,31 @@ public class BSPBuilder {
                 dbg("error xx 1 " + dot1);
             }
         }
-        if (lsl.size() == 0)
-            return new BSPLeaf(rsl);
-        if (rsl.size() == 0)
-            return new BSPLeaf(lsl);
-        return new BSPBranch(x, y, dx, dy, genNodes(lsl), genNodes(rsl)); // recursion on both branches
+    }
+
+    /**
+     * Creates a leaf and keeps track of the walls that are done for the progress.
+     *
+     * @param sl walls of the leaf
+     * @param fallback true for a leaf of the fallback tree
+     * @return leaf node
+     */
+    private BSPLeaf newLeaf(ArrayList<Wall> sl, boolean fallback) {
+        // walls of the fallback tree do not count for the progress of the regular tree
+        if (!fallback)
+            doneWalls += sl.size();
+        return new BSPLeaf(sl);
+    }
+
+    /**
+     * Sets a progress reporter that receives the progress of wall extraction and node generation.
+     * Without a reporter, progress is estimated from the expected number of partition iterations
+     * and passed directly to the order.
+     *
+     * @param progress the progress reporter, can be null
+     */
+    public void setProgressReporter(ProgressReporter progress) {
+        this.progress = progress;
     }
 
     /**
@@ -170,6 +296,7 @@ public class BSPBuilder {
             // skip walls where the partition flag was set
             if (element.isPartition())
                 continue;
+            token.tick();
             // provide feedback for progress bar every 32 iterations
             partiters++;
             if ((partiters & 31) == 0) {
@@ -193,13 +320,14 @@ public class BSPBuilder {
     private void updateProgressBar(int partiters) throws InterruptedException {
         // During maze generation, the most time consuming part needs to occasionally update the current screen
         //
-        int percentage = partiters * 100 / expectedPartiters;
+        if (null != progress) {
+            // walls in leaves are done, splitting walls adds a few more to the total
+            progress.setStageProgress((double) doneWalls / totalWalls);
+            return;
+        }
+        int percentage = (int) ((long) partiters * 100 / expectedPartiters);
         if (null != order) {
             order.updateProgress(percentage);
-            if (percentage < 100) {
-                // give main thread a chance to process keyboard events
-                Thread.currentThread().sleep(10);
-            }
         }
     }
 
@@ -223,7 +351,7 @@ public class BSPBuilder {
      *
      * @return vector of walls
      */
-    private ArrayList<Wall> generateWalls() {
+    private ArrayList<Wall> generateWalls() throws InterruptedException {
         ArrayList<Wall> sl = new ArrayList<Wall>();
         // this is left over from changes made in a refactoring step
         // it is an example to show how one can operate the old and the new
@@ -296,13 +424,14 @@ public class BSPBuilder {
      *
      * @param sl
      */
-    private void generateWallsForVerticalWallboardsNew(ArrayList<Wall> sl) {
+    private void generateWallsForVerticalWallboardsNew(ArrayList<Wall> sl) throws InterruptedException {
         int x;
         int y;
         Iterator<int[]> it;
         int[] cur;
         // we search for vertical wallboards, so for each row
         for (x = 0; x < width; x++) {
+            token.check();
             it = floorplan.iterator(x, 0, CardinalDirection.West);
             while (it.hasNext()) {
                 cur = it.next();
@@ -415,13 +544,14 @@ public class BSPBuilder {
      *
      * @param sl
      */
-    private void generateWallsForHorizontalWallboardsNew(ArrayList<Wall> sl) {
+    private void generateWallsForHorizontalWallboardsNew(ArrayList<Wall> sl) throws InterruptedException {
         int x;
         int y;
         Iterator<int[]> it;
         int[] cur;
         // we search for horizontal wallboards, so for each column
         for (y = 0; y < height; y++) {
+            token.check();
             // first round through rows
             it = floorplan.iterator(0, y, CardinalDirection.North);
             while (it.hasNext()) {
@@ -474,10 +604,10 @@ public class BSPBuilder {
             int df1y = se.getStartPositionY() - y; // difference between beginning of wall and y
             int df2x = se.getEndPositionX() - x; // difference between end of wall and x
             int df2y = se.getEndPositionY() - y; // difference between end of wall and y
-            int nx = dy;
-            int ny = -dx;
-            int dot1 = df1x * nx + df1y * ny;
-            int dot2 = df2x * nx + df2y * ny;
+            long nx = dy;
+            long ny = -dx;
+            long dot1 = df1x * nx + df1y * ny;
+            long dot2 = df2x * nx + df2y * ny;
             // update splits if necessary
             if (getSign(dot1) != getSign(dot2)) {
                 if (dot1 == 0)
@@ -513,7 +643,20 @@ public class BSPBuilder {
      * @throws InterruptedException
      */
     public BSPNode generateBSPNodes() throws InterruptedException {
+        return generateBSPNodes(prepareWalls()); // creates a data structure to quickly search for walls
+    }
+
+    /**
+     * Determines the walls for the tree and makes the final change to the floorplan.
+     * The floorplan does not change anymore after this method.
+     *
+     * @return walls to build the tree from
+     * @throws InterruptedException
+     */
+    ArrayList<Wall> prepareWalls() throws InterruptedException {
         // determine walls, i.e. wallboards over multiple cells in a vertical or horizontal direction
+        if (null != progress)
+            progress.startStage(ProgressReporter.Stage.WALLS);
         ArrayList<Wall> seglist = generateWalls();
 
         setPartitionBitForCertainWalls(seglist); // partition bit true means that those are not considered any further for node generation
@@ -521,8 +664,82 @@ public class BSPBuilder {
         // TODO: check why this is done. It creates a top wallboard on position (0,0). This may even corrupt a maze and block its exit!
         Wallboard wallboard = new Wallboard(0, 0, CardinalDirection.North);
         floorplan.addWallboard(wallboard, false);
+        return seglist;
+    }
+
+    /**
+     * Generate tree of BSP nodes for the walls from prepareWalls().
+     *
+     * @param seglist walls, become part of the tree
+     * @return root node of the tree
+     * @throws InterruptedException
+     */
+    BSPNode generateBSPNodes(ArrayList<Wall> seglist) throws InterruptedException {
+        totalWalls = Math.max(1, seglist.size());
+        doneWalls = 0;
+        if (null != progress)
+            progress.startStage(ProgressReporter.Stage.BSP);
+        return genNodes(seglist);
+    }
+
+    /**
+     * Generates a tree of BSP nodes for the walls from prepareWalls() that is quick to build,
+     * to draw a maze while the tree from generateBSPNodes() is not ready yet.
+     * Instead of grading candidates, each node is split at the wall that lies closest to the middle
+     * of its area, across the longer side, like a grid that is cut in halves.
+     * The tree is correct but less balanced, so drawing takes a bit longer.
+     * Works on copies of the walls such that the given walls can still be used for generateBSPNodes().
+     *
+     * @param seglist walls, left unchanged
+     * @return root node of the tree
+     * @throws InterruptedException
+     */
+    BSPNode generateFallbackNodes(ArrayList<Wall> seglist) throws InterruptedException {
+        final ArrayList<Wall> copies = new ArrayList<Wall>(seglist.size());
+        for (Wall w : seglist) {
+            final Wall copy = new Wall(w.getStartPositionX(), w.getStartPositionY(), w.getExtensionX(), w.getExtensionY(),
+                    w.getDistance(), colchange);
+            copy.setPartition(w.isPartition());
+            copies.add(copy);
+        }
+        return buildTree(copies, true);
+    }
 
-        return genNodes(seglist); // creates a data structure to quickly search for walls
+    /**
+     * Finds the wall without partition bit whose line is closest to the middle of the area of the given walls.
+     * Vertical walls are preferred if the area is wider than high, horizontal walls otherwise.
+     *
+     * @param sl walls
+     * @return the wall, null if all walls have their partition bit set
+     */
+    private static Wall findMiddleWall(ArrayList<Wall> sl) {
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        for (Wall w : sl) {
+            minX = Math.min(minX, Math.min(w.getStartPositionX(), w.getEndPositionX()));
+            maxX = Math.max(maxX, Math.max(w.getStartPositionX(), w.getEndPositionX()));
+            minY = Math.min(minY, Math.min(w.getStartPositionY(), w.getEndPositionY()));
+            maxY = Math.max(maxY, Math.max(w.getStartPositionY(), w.getEndPositionY()));
+        }
+        final boolean preferVertical = (maxX - minX >= maxY - minY);
+        final int midX = (minX + maxX) / 2;
+        final int midY = (minY + maxY) / 2;
+        Wall result = null;
+        long best = Long.MAX_VALUE;
+        for (Wall w : sl) {
+            if (w.isPartition())
+                continue;
+            final boolean vertical = (0 == w.getExtensionX());
+            // distance of the line of the wall to the middle, walls across the preferred direction come second
+            long d = vertical ? Math.abs(w.getStartPositionX() - midX) : Math.abs(w.getStartPositionY() - midY);
+            if (vertical != preferVertical)
+                d += 1L << 32;
+            if (d < best) {
+                best = d;
+                result = w;
+            }
+        }
+        return result;
     }
 
     /**
@@ -535,6 +752,16 @@ public class BSPBuilder {
         return (num < 0) ? -1 : (num > 0) ? 1 : 0;
     }
 
+    /**
+     * Provides the sign of a given long number
+     *
+     * @param num
+     * @return -1 if num < 0, 0 if num == 0, 1 if num > 0
+     */
+    static int getSign(long num) {
+        return (num < 0) ? -1 : (num > 0) ? 1 : 0;
+    }
+
     /**
      * Produce output for debugging purposes
      *
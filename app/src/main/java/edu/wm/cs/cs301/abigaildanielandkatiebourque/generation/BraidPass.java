@@ -0,0 +1,85 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * A pass that removes dead ends, which is known as braiding a maze.
+ * A dead end is a cell with wallboards on three sides. With the given probability,
+ * one of its wallboards that is not part of a border is taken down, preferably
+ * towards a neighbor that is a dead end as well, such that one wallboard removes two dead ends.
+ * The result has loops, so braiding is meant for mazes that are not perfect.
+ */
+
+public class BraidPass implements CellPass {
+
+    private final int threshold; // probability scaled to the range of non-negative integers
+    private Floorplan floorplan;
+    private RandomStream random;
+    private int removed;
+
+    /**
+     * Constructor
+     * @param probability that a dead end is removed, {@code 0 <= probability <= 1}
+     */
+    public BraidPass(double probability) {
+        threshold = (int)(Math.min(1.0, Math.max(0.0, probability)) * Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void begin(Floorplan floorplan, RandomStream random) {
+        this.floorplan = floorplan;
+        this.random = random;
+        removed = 0;
+    }
+
+    @Override
+    public void visit(int x, int y) {
+        if (!isDeadEnd(x, y) || (random.nextInt() >>> 1) >= threshold)
+            return;
+        // candidates are wallboards that can be taken down, dead end neighbors go first
+        CardinalDirection pick = null;
+        int count = 0;
+        boolean deadEndNeighbor = false;
+        for (CardinalDirection cd : CardinalDirection.VALUES) {
+            if (!floorplan.hasWall(x, y, cd) || floorplan.isPartOfBorder(x, y, cd))
+                continue;
+            final boolean deadEnd = isDeadEnd(x + cd.getDx(), y + cd.getDy());
+            if (deadEnd && !deadEndNeighbor) {
+                // start over with dead end neighbors only
+                deadEndNeighbor = true;
+                count = 0;
+            }
+            if (deadEnd != deadEndNeighbor)
+                continue;
+            // reservoir sampling: the i-th candidate replaces the pick with probability 1/i
+            count++;
+            if (0 == random.nextIntWithinInterval(0, count-1))
+                pick = cd;
+        }
+        if (null != pick) {
+            floorplan.deleteWallboard(x, y, pick);
+            removed++;
+        }
+    }
+
+    @Override
+    public void end() {
+        floorplan = null;
+        random = null;
+    }
+
+    /**
+     * Gives the number of dead ends that were removed by the last scan.
+     * @return number of wallboards that were taken down
+     */
+    public int getRemovedCount() {
+        return removed;
+    }
+
+    private boolean isDeadEnd(int x, int y) {
+        int walls = 0;
+        for (CardinalDirection cd : CardinalDirection.VALUES) {
+            if (floorplan.hasWall(x, y, cd))
+                walls++;
+        }
+        return 3 == walls;
+    }
+}
@@ -0,0 +1,115 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * Gives orders that a user waits for precedence over mazes that are built in the background,
+ * e.g. by the MazePrefetcher or a MazeBatch.
+ *
+ * Each build has a priority class. An interactive build registers with the scheduler while
+ * it runs. A background build passes checkpoints at stage boundaries of the generation and
+ * between nodes of the BSP tree, see CancellationToken.checkpoint(). At a checkpoint,
+ * a background build waits as long as any interactive build is running, such that the
+ * interactive build gets the processors and the shared WorkerPool for itself.
+ * Background builds do not lose any work, they continue where they stopped.
+ *
+ * Design implements Singleton pattern as all factories of the app share the processors.
+ */
+
+public final class BuildScheduler {
+    /**
+     * Lists the priority classes of builds.
+     * INTERACTIVE is for orders that a user waits for, e.g. from the GeneratingActivity.
+     * BACKGROUND is for mazes that are built ahead of time or in bulk.
+     */
+    public enum Priority { INTERACTIVE, BACKGROUND }
+
+    /** the single instance of this class. */
+    private static BuildScheduler instance = null;
+    /** lock to make the creation of the instance thread safe */
+    private static final Object LOCK = new Object();
+
+    // number of interactive builds that are running, volatile for a quick check without the lock
+    private volatile int interactive = 0;
+    // number of background builds that are waiting at a checkpoint
+    private int waiting = 0;
+
+    private BuildScheduler() {
+        // use getScheduler()
+    }
+
+    /**
+     * Delivers the instance of the scheduler.
+     * @return the scheduler
+     */
+    public static BuildScheduler getScheduler() {
+        synchronized(LOCK) {
+            if (null == instance)
+                instance = new BuildScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Registers an interactive build that starts to run.
+     * Background builds wait at their next checkpoint.
+     */
+    synchronized void beginInteractive() {
+        interactive++;
+    }
+
+    /**
+     * Unregisters an interactive build that is done, delivered or cancelled.
+     * Background builds continue once no interactive build is left.
+     */
+    synchronized void endInteractive() {
+        interactive--;
+        if (0 == interactive)
+            notifyAll();
+    }
+
+    /**
+     * Waits as long as interactive builds are running.
+     * Called by background builds at their checkpoints.
+     * @param token token of the background build, waiting stops if it is cancelled
+     * @throws InterruptedException if the token is cancelled or the thread is interrupted
+     */
+    void yieldToInteractive(CancellationToken token) throws InterruptedException {
+        if (0 == interactive)
+            return;
+        synchronized(this) {
+            waiting++;
+            try {
+                while (interactive > 0) {
+                    token.check();
+                    wait();
+                }
+            }
+            finally {
+                waiting--;
+            }
+        }
+        token.check();
+    }
+
+    /**
+     * Wakes up all waiting background builds such that cancelled builds can leave.
+     */
+    synchronized void wakeUp() {
+        notifyAll();
+    }
+
+    /**
+     * Gives the number of interactive builds that are running.
+     * @return number of builds
+     */
+    public int getInteractiveCount() {
+        return interactive;
+    }
+
+    /**
+     * Gives the number of background builds that wait for interactive builds to finish.
+     * @return number of builds
+     */
+    public synchronized int getWaitingCount() {
+        return waiting;
+    }
+}
@@ -0,0 +1,87 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * A flag to tell a maze builder and all of its tasks to stop working on an order.
+ * The MazeFactory sets the flag when an order is cancelled. Each stage of the
+ * maze generation checks the flag at regular intervals and leaves with an
+ * InterruptedException such that the builder can clean up, which is the same
+ * mechanism that the builder uses if its thread gets interrupted.
+ *
+ * Checking the flag is cheap. Tight loops call tick() which only
+ * reads the flag once every CHECK_INTERVAL calls.
+ * A token is shared by the threads of a builder, ticks may get lost when
+ * several threads count at the same time, which only delays a check a little.
+ */
+
+public final class CancellationToken {
+    /** number of calls to tick() between two checks of the flag, must be a power of 2 */
+    static final int CHECK_INTERVAL = 1024;
+
+    private volatile boolean cancelled = false;
+    private int ticks = 0; // counter for tick(), intentionally not synchronized
+    // priority class of the build, background builds wait for interactive builds at checkpoints
+    private volatile BuildScheduler.Priority priority = BuildScheduler.Priority.INTERACTIVE;
+
+    /**
+     * Sets the flag such that all stages stop at their next check.
+     */
+    public void cancel() {
+        cancelled = true;
+        // a background build may be waiting at a checkpoint
+        if (BuildScheduler.Priority.BACKGROUND == priority)
+            BuildScheduler.getScheduler().wakeUp();
+    }
+
+    /**
+     * Sets the priority class of the build that this token belongs to.
+     * @param priority the priority class
+     */
+    public void setPriority(BuildScheduler.Priority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * @return the priority class of the build that this token belongs to
+     */
+    public BuildScheduler.Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Checks if work should stop like check() and lets a background build
+     * wait at this point while interactive builds are running, see BuildScheduler.
+     * Called at stage boundaries.
+     * @throws InterruptedException if the token has been cancelled or the current thread has been interrupted
+     */
+    public void checkpoint() throws InterruptedException {
+        check();
+        if (BuildScheduler.Priority.BACKGROUND == priority)
+            BuildScheduler.getScheduler().yieldToInteractive(this);
+    }
+
+    /**
+     * Tells if the token has been cancelled or the current thread has been interrupted.
+     * @return true if work should stop, false otherwise
+     */
+    public boolean isCancelled() {
+        return cancelled || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Checks if work should stop.
+     * @throws InterruptedException if the token has been cancelled or the current thread has been interrupted
+     */
+    public void check() throws InterruptedException {
+        if (isCancelled())
+            throw new InterruptedException("maze generation cancelled");
+    }
+
+    /**
+     * Counts an iteration of a loop and checks the token every CHECK_INTERVAL iterations.
+     * @throws InterruptedException if the token has been cancelled or the current thread has been interrupted
+     */
+    public void tick() throws InterruptedException {
+        if ((++ticks & (CHECK_INTERVAL-1)) == 0)
+            check();
+    }
+}
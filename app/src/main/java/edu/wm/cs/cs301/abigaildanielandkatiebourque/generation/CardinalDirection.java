@@ -31,18 +31,7 @@ public enum CardinalDirection {
      * @return direction after 90 degree clockwise rotation
      */
     public CardinalDirection rotateClockwise() {
-        switch(this) {
-            case North :
-                return CardinalDirection.East ;
-            case East :
-                return CardinalDirection.South ;
-            case South :
-                return CardinalDirection.West ;
-            case West :
-                return CardinalDirection.North ;
-            default:
-                throw new RuntimeException("Inconsistent enum type") ;
-        }
+        return VALUES[(ordinal() + 1) & 3] ;
     }
     /**
      * Gives the opposite direction which is the same as applying a 180 degree
@@ -50,40 +39,28 @@ public enum CardinalDirection {
      * @return direction that is opposite to the current direction
      */
     public CardinalDirection oppositeDirection() {
-        switch(this) {
-            case North :
-                return CardinalDirection.South ;
-            case East :
-                return CardinalDirection.West ;
-            case South :
-                return CardinalDirection.North ;
-            case West :
-                return CardinalDirection.East ;
-            default:
-                throw new RuntimeException("Inconsistent enum type") ;
-        }
+        return VALUES[(ordinal() + 2) & 3] ;
     }
     /**
      * Gives a random direction. Values are picked with equal probabilities.
      * @return a random direction, distribution is uniform
      */
     public CardinalDirection randomDirection() {
-        int i = SingleRandom.getRandom().nextIntWithinInterval(0, 3) ;
-        switch(i) {
-            case 0 :
-                return CardinalDirection.North ;
-            case 1 :
-                return CardinalDirection.East ;
-            case 2 :
-                return CardinalDirection.South ;
-            case 3 :
-                return CardinalDirection.West ;
-            default:
-                throw new RuntimeException("Random variable out of bounds: " + i) ;
-        }
+        return randomDirection(SingleRandom.getRandom().nextIntWithinInterval(0, 3)) ;
+    }
+    /**
+     * Gives a random direction drawn from the given stream. Values are picked with equal probabilities.
+     * @param random the random number stream, e.g. the one of a maze builder
+     * @return a random direction, distribution is uniform
+     */
+    public CardinalDirection randomDirection(RandomStream random) {
+        return randomDirection(random.nextIntWithinInterval(0, 3)) ;
+    }
+    private CardinalDirection randomDirection(int i) {
+        if (i < 0 || i > 3)
+            throw new RuntimeException("Random variable out of bounds: " + i) ;
+        return VALUES[i] ;
     }
-
-
 
     /**
      * Gives the matching direction for (dx,dy) pair as in Cells.java
@@ -113,37 +90,34 @@ public enum CardinalDirection {
         }
     }
     /**
-     * Gives the (dx,dy) pair as in Cells.java for the current direction
+     * Gives the (dx,dy) pair as in Cells.java for the current direction.
+     * Allocates a new array on each call, loops should use getDx() and getDy() instead.
      * @return (dx,dy) pair, dx,dy in {-1,0,1}
      */
     public int[] getDirection() {
-		/* Compare with Cells.java for consistency
-		 Directions: right=east, down=south, left=west, up=north
-		public static int[] DIRS_X = { 1, 0, -1, 0 };
-		public static int[] DIRS_Y = { 0, 1, 0, -1 };
-		 */
-        int[] result = new int[2] ;
-        switch(this) {
-            case North: // flipped North :
-                result[0] = 0 ;
-                result[1] = -1 ;
-                break ;
-            case East :
-                result[0] = 1 ;
-                result[1] = 0 ;
-                break ;
-            case South: // flipped South :
-                result[0] = 0 ;
-                result[1] = 1 ;
-                break ;
-            case West :
-                result[0] = -1 ;
-                result[1] = 0 ;
-                break ;
-            default:
-                throw new RuntimeException("Inconsistent enum type") ;
-        }
-        return result ;
+        return new int[] { getDx(), getDy() } ;
+    }
+    /**
+     * Gives the dx value of the (dx,dy) pair for the current direction
+     * @return dx in {-1,0,1}
+     */
+    public int getDx() {
+        return DX[ordinal()] ;
+    }
+    /**
+     * Gives the dy value of the (dx,dy) pair for the current direction
+     * @return dy in {-1,0,1}
+     */
+    public int getDy() {
+        return DY[ordinal()] ;
     }
 
+    // (dx,dy) pairs indexed by ordinal: north = (0,-1), east = (1,0), south = (0,1), west = (-1,0)
+    private static final int[] DX = { 0, 1, 0, -1 } ;
+    private static final int[] DY = { -1, 0, 1, 0 } ;
+    /**
+     * All directions in order of their ordinals, same as values() but without a new array
+     * for each call. Must not be modified.
+     */
+    static final CardinalDirection[] VALUES = values() ;
 }
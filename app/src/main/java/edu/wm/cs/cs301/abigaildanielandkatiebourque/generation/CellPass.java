@@ -0,0 +1,35 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * A pass over all cells of a floorplan that runs after the pathways of a maze
+ * are generated and before the distances are computed, e.g. to remove dead ends,
+ * to add loops or to collect statistics.
+ *
+ * The maze builder runs all registered passes in a single scan over the cells:
+ * it visits the cells row by row and calls visit() of each pass for a cell before
+ * it moves on to the next cell. A pass must therefore only look at the given cell and its
+ * neighbors. Changes to wallboards are seen by passes that come later
+ * in the order of registration and by all passes for later cells.
+ *
+ * A pass is used by a single builder at a time.
+ *
+ */
+
+public interface CellPass {
+    /**
+     * Called once before the scan.
+     * @param floorplan the floorplan of the maze, can be modified by the pass
+     * @param random random stream of the builder for randomized decisions
+     */
+    void begin(Floorplan floorplan, RandomStream random) ;
+    /**
+     * Called once for each cell in row-major order.
+     * @param x coordinate of cell, {@code 0 <= x < width}
+     * @param y coordinate of cell, {@code 0 <= y < height}
+     */
+    void visit(int x, int y) ;
+    /**
+     * Called once after the scan.
+     */
+    void end() ;
+}
@@ -0,0 +1,122 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import edu.wm.cs.cs301.abigaildanielandkatiebourque.gui.Constants;
+
+/**
+ * An immutable maze layout as it is produced by a MazeBatch:
+ * the wallboards of all cells, the distances to the exit and the starting position.
+ * It has no BSP tree, which is the most expensive part of a maze and only needed
+ * for the first person view. Method toMaze() builds the tree and delivers a
+ * regular Maze for the game.
+ *
+ * Cells and distances are kept in one dimensional arrays in row-major order,
+ * i.e. position (x,y) is at index {@code y*width+x}.
+ */
+
+public final class CompactMaze {
+    private final int skill;     // skill level, gives the expected number of partitions for the BSP tree
+    private final int width;
+    private final int height;
+    private final int[] cells;   // content of the floorplan, see Floorplan for the encoding
+    private final int[] dists;   // distance to the exit for each cell
+    private final int startx;
+    private final int starty;
+    private final int colchange; // color change for the walls of the BSP tree
+
+    /**
+     * Constructor that copies the given layout.
+     * @param skill skill level of the maze, {@code 0 <= skill <= 15}
+     * @param floorplan wallboards of the maze, read only
+     * @param dists distances to the exit, read only
+     * @param startx x coordinate of the starting position
+     * @param starty y coordinate of the starting position
+     * @param colchange used in the constructor for Segments class Seg
+     */
+    CompactMaze(int skill, Floorplan floorplan, Distance dists, int startx, int starty, int colchange) {
+        this.skill = skill;
+        this.width = floorplan.width;
+        this.height = floorplan.height;
+        cells = new int[width*height];
+        floorplan.copyCells(cells);
+        this.dists = new int[width*height];
+        final int[][] d = dists.getAllDistanceValues();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++)
+                this.dists[y*width + x] = d[x][y];
+        }
+        this.startx = startx;
+        this.starty = starty;
+        this.colchange = colchange;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return a new array with the (x,y) coordinates of the starting position
+     */
+    public int[] getStartingPosition() {
+        return new int[] {startx, starty};
+    }
+
+    /**
+     * Gives the distance to the exit.
+     * @param x coordinate of cell, {@code 0 <= x < width}
+     * @param y coordinate of cell, {@code 0 <= y < height}
+     * @return number of steps to the exit, 1 at the exit
+     */
+    public int getDistanceToExit(int x, int y) {
+        return dists[y*width + x];
+    }
+
+    /**
+     * Tells if there is a wallboard at the given position and direction.
+     * @param x coordinate of cell, {@code 0 <= x < width}
+     * @param y coordinate of cell, {@code 0 <= y < height}
+     * @param dir direction of the wallboard
+     * @return true if there is a wallboard, false otherwise
+     */
+    public boolean hasWall(int x, int y, CardinalDirection dir) {
+        return (cells[y*width + x] & Floorplan.getWallBit(dir)) != 0;
+    }
+
+    /**
+     * Builds a regular maze from this layout, including its BSP tree.
+     * The maze does not share any data with this layout.
+     * This takes much longer than the generation of the layout.
+     * @return maze for the game
+     */
+    public Maze toMaze() {
+        final Floorplan floorplan = new Floorplan(width, height, cells);
+        final int[][] d = new int[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++)
+                d[x][y] = dists[y*width + x];
+        }
+        final Distance distance = new Distance(d);
+        // a layout of an order with explicit dimensions need not match its skill level
+        final int partiters = (Constants.SKILL_X[skill] == width && Constants.SKILL_Y[skill] == height) ?
+                Constants.SKILL_PARTCT[skill] : MazeBuilder.estimatePartiters(width, height);
+        final BSPNode root;
+        try {
+            root = new BSPBuilder(null, distance, floorplan, width, height, colchange,
+                    partiters).generateBSPNodes();
+        } catch (InterruptedException e) {
+            // can not happen without a token that gets cancelled
+            throw new RuntimeException("CompactMaze: BSP generation interrupted", e);
+        }
+        final Maze maze = new MazeContainer();
+        maze.setWidth(width);
+        maze.setHeight(height);
+        maze.setFloorplan(floorplan);
+        maze.setMazedists(distance);
+        maze.setRootnode(root);
+        maze.setStartingPosition(startx, starty);
+        return maze;
+    }
+}
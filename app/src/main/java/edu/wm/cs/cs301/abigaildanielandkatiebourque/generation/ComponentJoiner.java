@@ -0,0 +1,173 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * Joins the connected components of a rectangular area of a floorplan
+ * by taking down randomly chosen wallboards, in the style of Kruskal's algorithm.
+ * A wallboard is only taken down if it separates two cells that are
+ * not connected yet, so joining never introduces a loop.
+ *
+ * On construction, cells in the area that are not separated by a wallboard
+ * are merged, which captures the existing connectivity, e.g. inside rooms
+ * or from a previous generation step.
+ *
+ * Internal wallboards are encoded as edges, an edge is the wallboard on the east
+ * or south side of a cell and encoded as 2*cell for east and 2*cell+1 for south
+ * where cell = y*width+x with coordinates relative to the area.
+ * Edges are kept in primitive arrays, no wallboard objects are created.
+ *
+ * Different instances can operate on disjoint areas of the same floorplan
+ * from different threads, as taking down a wallboard only changes the two
+ * cells on either side of it.
+ */
+
+public class ComponentJoiner {
+    private final Floorplan floorplan;
+    private final int x0;     // upper left corner of area
+    private final int y0;
+    private final int width;  // dimensions of area
+    private final int height;
+    private final DisjointSet sets; // cells of the area, index y*width+x relative to the upper left corner
+    private ProgressReporter progress; // optional, receives the fraction of edges that join() has considered
+
+    /**
+     * Constructor for an area of the given floorplan.
+     * @param floorplan the floorplan to operate on
+     * @param x0 x coordinate of upper left corner of area
+     * @param y0 y coordinate of upper left corner of area
+     * @param width width of area, {@code x0 + width <= floorplan.width}
+     * @param height height of area, {@code y0 + height <= floorplan.height}
+     */
+    public ComponentJoiner(Floorplan floorplan, int x0, int y0, int width, int height) {
+        this.floorplan = floorplan;
+        this.x0 = x0;
+        this.y0 = y0;
+        this.width = width;
+        this.height = height;
+        sets = new DisjointSet(width*height);
+        mergeOpenCells();
+    }
+
+    /**
+     * Sets the reporter that join() passes its progress on to.
+     * Only useful if joining the area is the whole stage.
+     * @param progress receives the fraction of edges that are done, null for no reports
+     */
+    public void setProgressReporter(ProgressReporter progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Merges all adjacent cells that are not separated by a wallboard.
+     */
+    private void mergeOpenCells() {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int cell = y*width + x;
+                if (x < width-1 && floorplan.hasNoWall(x0+x, y0+y, CardinalDirection.East))
+                    sets.union(cell, cell+1);
+                if (y < height-1 && floorplan.hasNoWall(x0+x, y0+y, CardinalDirection.South))
+                    sets.union(cell, cell+width);
+            }
+        }
+    }
+
+    /**
+     * Gives all internal wallboards of the area that are present and not marked as a border.
+     * @return array of encoded edges, exactly filled to its length
+     */
+    public int[] getClosedEdges() {
+        return getClosedEdges(width, height);
+    }
+
+    /**
+     * Gives the internal wallboards of the area that are present, not marked as a border
+     * and located on a seam between tiles of the given dimensions. Tiles start at the
+     * upper left corner of the area.
+     * @param tileWidth width of a tile, {@code 0 < tileWidth}
+     * @param tileHeight height of a tile, {@code 0 < tileHeight}
+     * @return array of encoded edges, exactly filled to its length
+     */
+    public int[] getClosedEdgesOnSeams(int tileWidth, int tileHeight) {
+        return getClosedEdges(tileWidth, tileHeight);
+    }
+
+    /**
+     * Collects closed edges that cross the boundary of tiles of given dimensions.
+     * Tiles of the same size as the area have no boundary inside the area, for those
+     * all closed edges are collected.
+     */
+    private int[] getClosedEdges(int tileWidth, int tileHeight) {
+        final boolean all = (tileWidth == width && tileHeight == height);
+        final int[] edges = GenerationArena.getArena().acquireInts(2*width*height);
+        int count = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int cell = y*width + x;
+                if (x < width-1 && (all || (x+1) % tileWidth == 0) && isClosed(x, y, CardinalDirection.East))
+                    edges[count++] = 2*cell;
+                if (y < height-1 && (all || (y+1) % tileHeight == 0) && isClosed(x, y, CardinalDirection.South))
+                    edges[count++] = 2*cell+1;
+            }
+        }
+        int[] result = new int[count];
+        System.arraycopy(edges, 0, result, 0, count);
+        GenerationArena.getArena().releaseInts(edges);
+        return result;
+    }
+
+    /**
+     * @return true if there is a wallboard that can be taken down at (x,y) relative to the area
+     */
+    private boolean isClosed(int x, int y, CardinalDirection cd) {
+        return floorplan.hasWall(x0+x, y0+y, cd) && !floorplan.isPartOfBorder(x0+x, y0+y, cd);
+    }
+
+    /**
+     * Considers the given edges in random order and takes down a wallboard
+     * if it separates two cells that are not connected yet.
+     * The given array is shuffled as a side effect.
+     * @param edges encoded edges as delivered by getClosedEdges
+     * @param random source of randomness for the order of edges
+     * @param token checked at regular intervals
+     * @return the number of wallboards that have been taken down
+     * @throws InterruptedException if the token is cancelled
+     */
+    public int join(int[] edges, RandomStream random, CancellationToken token) throws InterruptedException {
+        shuffle(edges, random);
+        int result = 0;
+        for (int i = 0; i < edges.length; i++) {
+            token.tick();
+            if (null != progress && 0 == (i & (MazeBuilder.PROGRESS_INTERVAL-1)))
+                progress.setStageProgress((double)i / edges.length);
+            final int edge = edges[i];
+            final int cell = edge >> 1;
+            final boolean south = (edge & 1) != 0;
+            if (sets.union(cell, south ? cell+width : cell+1)) {
+                floorplan.deleteWallboard(x0 + cell % width, y0 + cell / width,
+                        south ? CardinalDirection.South : CardinalDirection.East);
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gives the number of connected components in the area.
+     * @return the number of components
+     */
+    public int getComponentCount() {
+        return sets.getCount();
+    }
+
+    /**
+     * Permutes the given array randomly (Fisher-Yates shuffle).
+     */
+    private static void shuffle(int[] a, RandomStream random) {
+        for (int i = a.length-1; i > 0; i--) {
+            final int j = random.nextIntWithinInterval(0, i);
+            final int tmp = a[i];
+            a[i] = a[j];
+            a[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A disjoint-set (union-find) data structure over the integers {@code 0,1,...,size-1}
+ * that can be used by several threads at the same time without locks.
+ * It is used by maze generation algorithms that merge sets in parallel,
+ * e.g. Boruvka's algorithm. For a single thread, DisjointSet is faster.
+ *
+ * Parents are kept in an atomic array and changed with compare-and-set only.
+ * A union always attaches the representative with the larger index below the one
+ * with the smaller index, which keeps the trees free of cycles no matter how
+ * concurrent unions interleave. Finds halve the path on the way.
+ *
+ * Cells of a floorplan are mapped to elements with {@code index = y * width + x}.
+ */
+
+public class ConcurrentDisjointSet {
+    private final AtomicIntegerArray parent; // parent[i] == i if i is the representative of its set
+
+    /**
+     * Constructor, each element starts in a set of its own.
+     * @param size number of elements, {@code 0 <= size}
+     */
+    public ConcurrentDisjointSet(int size) {
+        parent = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++)
+            parent.set(i, i);
+    }
+
+    /**
+     * Finds the representative of the set that contains the given element.
+     * Lets every other element on the path point to its grandparent such that
+     * subsequent calls are faster. The result may be outdated if other threads
+     * merge sets at the same time.
+     * @param i element, {@code 0 <= i < size}
+     * @return representative element of the set
+     */
+    public int find(int i) {
+        int p = parent.get(i);
+        while (p != i) {
+            final int gp = parent.get(p);
+            if (gp != p)
+                parent.compareAndSet(i, p, gp); // path halving, fails harmlessly if i moved on
+            i = gp;
+            p = parent.get(i);
+        }
+        return i;
+    }
+
+    /**
+     * Merges the sets that contain the two given elements.
+     * @param a element, {@code 0 <= a < size}
+     * @param b element, {@code 0 <= b < size}
+     * @return true if the elements were in different sets before, false if they already were in the same set.
+     * If several threads merge the same two sets at the same time, exactly one of them gets true.
+     */
+    public boolean union(int a, int b) {
+        while (true) {
+            a = find(a);
+            b = find(b);
+            if (a == b)
+                return false;
+            if (a < b) {
+                final int tmp = a;
+                a = b;
+                b = tmp;
+            }
+            // a is the larger representative, it only moves if it still is a representative
+            if (parent.compareAndSet(a, a, b))
+                return true;
+        }
+    }
+
+    /**
+     * Tells if the two given elements are in the same set.
+     * @param a element, {@code 0 <= a < size}
+     * @param b element, {@code 0 <= b < size}
+     * @return true if a and b are in the same set, false otherwise
+     */
+    public boolean isConnected(int a, int b) {
+        while (true) {
+            a = find(a);
+            b = find(b);
+            if (a == b)
+                return true;
+            // a representative that is still a representative proves that the sets differ
+            if (parent.get(a) == a)
+                return false;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * An order for a maze of explicitly given dimensions and number of rooms
+ * instead of the ones that come with the skill level, e.g. for load tests
+ * with mazes that are much larger than the largest skill level.
+ * The skill level of the order is not used for the maze generation.
+ * A perfect maze has no rooms, whatever the given number of rooms.
+ *
+ */
+
+public interface DimensionedOrder extends Order {
+    /** min width or height of a maze */
+    int MIN_DIMENSION = 4;
+    /** max width or height of a maze */
+    int MAX_DIMENSION = 4096;
+
+    /**
+     * Gives the width of the maze, {@code MIN_DIMENSION <= width <= MAX_DIMENSION}
+     */
+    int getWidth() ;
+    /**
+     * Gives the height of the maze, {@code MIN_DIMENSION <= height <= MAX_DIMENSION}
+     */
+    int getHeight() ;
+    /**
+     * Gives the requested number of rooms, 0 or more.
+     * Fewer rooms are placed if the maze runs out of space.
+     */
+    int getRoomCount() ;
+}
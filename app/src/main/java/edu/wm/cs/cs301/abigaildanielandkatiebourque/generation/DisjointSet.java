@@ -0,0 +1,92 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * A disjoint-set (union-find) data structure over the integers {@code 0,1,...,size-1}.
+ * It is used by maze generation algorithms that need to know if two cells
+ * are already connected, e.g. Kruskal's algorithm.
+ *
+ * The implementation operates on primitive arrays only, it uses
+ * union by rank and path compression such that a sequence of operations
+ * runs in nearly linear time.
+ *
+ * Cells of a floorplan are mapped to elements with {@code index = y * width + x}.
+ */
+
+public class DisjointSet {
+    private final int[] parent; // parent[i] == i if i is the representative of its set
+    private final byte[] rank;  // upper bound for the height of the tree rooted at i, small enough for a byte
+    private int count;          // number of disjoint sets
+
+    /**
+     * Constructor, each element starts in a set of its own.
+     * @param size number of elements, {@code 0 <= size}
+     */
+    public DisjointSet(int size) {
+        parent = new int[size];
+        rank = new byte[size];
+        for (int i = 0; i < size; i++)
+            parent[i] = i;
+        count = size;
+    }
+
+    /**
+     * Finds the representative of the set that contains the given element.
+     * Compresses the path on the way such that subsequent calls are faster.
+     * @param i element, {@code 0 <= i < size}
+     * @return representative element of the set
+     */
+    public int find(int i) {
+        int root = i;
+        while (parent[root] != root)
+            root = parent[root];
+        // path compression: let all elements on the path point to the root
+        while (parent[i] != root) {
+            int next = parent[i];
+            parent[i] = root;
+            i = next;
+        }
+        return root;
+    }
+
+    /**
+     * Merges the sets that contain the two given elements.
+     * @param a element, {@code 0 <= a < size}
+     * @param b element, {@code 0 <= b < size}
+     * @return true if the elements were in different sets before, false if they already were in the same set
+     */
+    public boolean union(int a, int b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra == rb)
+            return false;
+        // union by rank: attach the lower tree below the higher tree
+        if (rank[ra] < rank[rb]) {
+            parent[ra] = rb;
+        } else if (rank[ra] > rank[rb]) {
+            parent[rb] = ra;
+        } else {
+            parent[rb] = ra;
+            rank[ra]++;
+        }
+        count--;
+        return true;
+    }
+
+    /**
+     * Tells if the two given elements are in the same set.
+     * @param a element, {@code 0 <= a < size}
+     * @param b element, {@code 0 <= b < size}
+     * @return true if a and b are in the same set, false otherwise
+     */
+    public boolean isConnected(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    /**
+     * Gives the current number of disjoint sets.
+     * @return the number of sets
+     */
+    public int getCount() {
+        return count;
+    }
+}
@@ -149,19 +149,50 @@ public class Distance {
      * @return exit position somewhere on the  border
      */
     public int[] computeDistances(Floorplan cells) {
+        try {
+            return computeDistances(cells, null);
+        } catch (InterruptedException e) {
+            // can not happen without a token
+            throw new RuntimeException("Distance: computation interrupted", e);
+        }
+    }
+    /**
+     * Compute distances for given cells object of a maze
+     * like {@link #computeDistances(Floorplan)} but stops if the given token is cancelled.
+     * @param cells with information on wallboards for a maze, can not be null, read only
+     * @param token checked at regular intervals, null for no checks
+     * @return exit position somewhere on the  border
+     * @throws InterruptedException if the token is cancelled
+     */
+    public int[] computeDistances(Floorplan cells, CancellationToken token) throws InterruptedException {
+        return computeDistances(cells, token, null);
+    }
+    /**
+     * Compute distances for given cells object of a maze
+     * like {@link #computeDistances(Floorplan, CancellationToken)} and
+     * tells the given reporter how much of the computation is done.
+     * @param cells with information on wallboards for a maze, can not be null, read only
+     * @param token checked at regular intervals, null for no checks
+     * @param progress receives the fraction of cells that are done, null for no reports
+     * @return exit position somewhere on the  border
+     * @throws InterruptedException if the token is cancelled
+     */
+    public int[] computeDistances(Floorplan cells, CancellationToken token, ProgressReporter progress) throws InterruptedException {
         // constraint: cells must be of size (width x height)
+        // start position of a previous computation no longer applies
+        startPosition = null;
 
         // Step 1: find a suitable exit position
         // Heuristic:
         // compute temporary distances for a starting point
         // (x,y) = (width/2,height/2)
         // which is located in the center of the maze
-        computeDists(cells, width/2, height/2);
+        computeDists(cells, width/2, height/2, token, progress, 0);
         // figure out which position is the farthest on the border
         // to find a candidate for the exit position
         exitPosition = getPositionWithMaxDistanceOnBorder();
         // Step 2: compute distances with regards to the exit position
-        computeDists(cells, exitPosition[0], exitPosition[1]);
+        computeDists(cells, exitPosition[0], exitPosition[1], token, progress, 1);
         return exitPosition ;
     }
 
@@ -305,69 +336,62 @@ public class Distance {
 
     /**
      * Computes distances to the given position (ax,ay) for all cells in array dists.
+     * Cells are visited in breadth first order from (ax,ay), such that each cell
+     * receives its final value when it is reached for the first time.
+     * This takes a single pass over the cells, whatever the layout of the maze.
      * @param cells with information on wallboards for a maze, can not be null
      * @param ax, position, x coordinate
      * @param ay, position, y coordinate
+     * @param token checked every few thousand cells, null for no checks
+     * @param progress receives the progress every few thousand cells, null for no reports
+     * @param pass 0 for the first and 1 for the second of the two passes of computeDistances
      */
-    private void computeDists(Floorplan cells, int ax, int ay) {
-        //int x, y;
+    private void computeDists(Floorplan cells, int ax, int ay, CancellationToken token,
+            ProgressReporter progress, int pass) throws InterruptedException {
         // initialize the distance array with a value for infinity
         setAllDistanceValues(INFINITY) ;
         // set the final distance at the exit position
         dists[ax][ay] = 1;
-        // distribute values from this position to get started
-        pushDistanceValuesDFS2(cells, ax, ay);
-        int toDoCounter = countInfinity();
-        int progress; // used to recognize fixpoint, no progress, then stop
-        // go over this array as long as we can find something to do
-        // MEMO: there are likely to be much smarter ways to distribute distances in a breadth first manner...
-        // why not push identified cells with infinite distance on a "work to do" heap
-        // TODO: limit iterations to upperbound which is #cells == width * height
-        // in each iteration at least one cell should benefit from neighbor
-        // in each iteration at least one cell should receive its final value
-        // TODO: do a final checkup for enclosed areas left over with Max Int
-        do {
-            // check all entries in the distance array
-            for (int x = 0; x != width; x++) {
-                for (int y = 0; y != height; y++)
-                {
-                    if (dists[x][y] == INFINITY) {
+        // queue of cells to visit, encoded as y*width+x
+        final int[] queue = GenerationArena.getArena().acquireInts(width*height);
+        try {
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = ay*width + ax;
+            while (head < tail) {
+                if (0 == (head & (CHECK_INTERVAL-1))) {
+                    if (null != token)
+                        token.check();
+                    if (null != progress)
+                        progress.setStageProgress((pass + (double)head / (width*height)) / 2);
+                }
+                final int cell = queue[head++];
+                final int x = cell % width;
+                final int y = cell / width;
+                final int nextDistance = dists[x][y] + 1; // distance of a neighbor
+                for (CardinalDirection cd: CardinalDirection.VALUES) {
+                    // check for reachable neighbors
+                    if (!cells.hasNoWall(x, y, cd))
                         continue;
+                    final int nextX = x+cd.getDx();
+                    final int nextY = y+cd.getDy();
+                    // check if cell at (nextX,nextY) is within bounds and not reached yet
+                    if ((0 <= nextX && nextX < width) && (0 <= nextY && nextY < height)
+                            && dists[nextX][nextY] == INFINITY) {
+                        dists[nextX][nextY] = nextDistance;
+                        queue[tail++] = nextY*width + nextX;
                     }
-                    // if the distance is not infinite,
-                    // let's see if the cell has a neighbor that we can update and
-                    // perform a depth first search on.
-                    pushDistanceValuesDFS2(cells, x, y);
                 }
             }
-            progress = toDoCounter - countInfinity();
-            toDoCounter -= progress; // update to current value
-        } while (0 < progress);
+        }
+        finally {
+            GenerationArena.getArena().releaseInts(queue);
+        }
         assert (0 == countInfinity()) :
                 "All positions should have a finite distance to the exit";
-        // the computation is not good enough to have truly minimum values
-        saturateDistances(cells);
-    }
-    /**
-     * Follows a path as far as possible to push small distance values
-     * into the maze
-     * @param cells needed for checking wallboards, read only
-     * @param sx starting position
-     * @param sy starting position
-     */
-    private void pushDistanceValuesDFS2(Floorplan cells, int sx, int sy) {
-        while (true) {
-            CardinalDirection nextn = updateNeighborDistancesAndDirection(cells, sx, sy);
-            if (nextn == null)
-                break; // exit the loop if we cannot find another cell to proceed with
-            // update coordinates for next cell
-            int[] dir = nextn.getDirection();
-            sx += dir[0];
-            sy += dir[1];
-            // follow the nextn node on a depth-first-search path
-        }
     }
-
+    // number of cells between two checks of the token in computeDists, must be a power of 2
+    private static final int CHECK_INTERVAL = 4096;
 
     /**
      * Sets all values in dists to given value
@@ -393,71 +417,5 @@ public class Distance {
         }
         return result;
     }
-    /**
-     * Updates distance values for adjacent cells that are reachable
-     * if value can be reduced to current distance plus 1.
-     * @param cells with information on wallboards for a maze, can not be null, read only
-     * @param currentX x coordinate of current position
-     * @param currentY y coordinate of current position
-     * @return direction for a neighbor that has been updated or null if there is none
-     */
-    private CardinalDirection updateNeighborDistancesAndDirection(Floorplan cells, int currentX, int currentY) {
-        CardinalDirection result = null; // returns null by default
-        int nextDistance = dists[currentX][currentY] + 1; // distance of a neighbor
-        int[] dir;
-        int nextX;
-        int nextY;
-        // check all four directions, update distance as needed
-        for (CardinalDirection cd: CardinalDirection.values()) {
-            // check for reachable neighbors
-            if (cells.hasNoWall(currentX, currentY, cd)) {
-                // check if neighbor is on board
-                dir = cd.getDirection();
-                nextX = currentX+dir[0];
-                nextY = currentY+dir[1];
-                // check if cell at (nextX,nextY) is within bounds
-                if ((0 <= nextX && nextX < width) && (0 <= nextY && nextY < height)) {
-                    // check if neigbor's distance needs update
-                    if (dists[nextX][nextY] > nextDistance) {
-                        // update the neighbor's distance value
-                        // mark that cell as the next one
-                        dists[nextX][nextY] = nextDistance;
-                        result = cd;
-                    }
-                }
-            }
-        }
-        return result;
-    }
-
-    /**
-     * Fix-point iteration on distance matrix.
-     * @param  cells with information on wallboards for a maze, can not be null, read only
-     */
-    private void saturateDistances(Floorplan cells) {
-        boolean progress = false;
-        //int count = 0;
-        int[] dir = null;
-        CardinalDirection nextn;
-        do {
-            progress = false; // reset termination criterion
-            // go through all positions
-            // check if we can update a neighbor to
-            // a shorter distance, if so we made progress
-            for (int x = 0; x < width; x++) {
-                for (int y = 0; y < height; y++) {
-                    nextn = updateNeighborDistancesAndDirection(cells, x, y);
-                    if (null != nextn) {
-                        progress = true; // something changed
-                        // follow neighbor on a depth-first-search path
-                        dir = nextn.getDirection();
-                        pushDistanceValuesDFS2(cells, x+dir[0], y+dir[1]);
-                    }
-                }
-            }
-            //count++;
-        } while (progress);
-        //System.out.println("Distance.saturate: #iterations needed " + count);
-    }
 
 }
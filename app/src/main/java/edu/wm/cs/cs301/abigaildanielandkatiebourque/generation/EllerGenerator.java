@@ -0,0 +1,146 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * Generates a perfect maze with Eller's algorithm, one row at a time.
+ * Each finished row is handed to a RowSink, the generator itself only keeps
+ * information on the current row. Memory is linear in the width of the maze
+ * and independent of its height, time is linear in the number of cells.
+ *
+ * Sets of cells that are connected through the rows above are kept as circular
+ * doubly linked lists over the column indices in the two arrays left and right.
+ * As sets in a maze can not cross each other, the members of a set appear in
+ * the list in the same order as in the row. Two neighbors c and c+1 are
+ * therefore in the same set if and only if right[c] == c+1, which makes all
+ * set operations constant time.
+ *
+ * If the sink blocks wallboards, e.g. for borders of rooms, a set may not be able
+ * to continue into the next row. The resulting maze is then not necessarily
+ * connected and a caller needs to join the remaining components.
+ */
+
+public class EllerGenerator {
+    private final int width;
+    private final int height;
+    private final RandomStream random;
+    private final int[] left;  // left[c] is the previous member of the set of column c
+    private final int[] right; // right[c] is the next member of the set of column c
+    private final boolean[] eastOpen;  // decisions for the current row, reused for each row
+    private final boolean[] southOpen;
+
+    /**
+     * Constructor
+     * @param width width of maze, {@code 0 < width}
+     * @param height height of maze, {@code 0 < height}
+     * @param random source of randomness for decisions
+     */
+    public EllerGenerator(int width, int height, RandomStream random) {
+        this.width = width;
+        this.height = height;
+        this.random = random;
+        left = new int[width];
+        right = new int[width];
+        eastOpen = new boolean[width];
+        southOpen = new boolean[width];
+    }
+
+    /**
+     * Generates the maze and delivers it row by row to the given sink.
+     * If the current thread is interrupted, generation stops after the current row
+     * and the interrupt status is kept.
+     * @param sink receives the rows from top to bottom
+     */
+    public void generate(RowSink sink) {
+        try {
+            generate(sink, new CancellationToken());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Generates the maze and delivers it row by row to the given sink.
+     * @param sink receives the rows from top to bottom
+     * @param token checked once per row
+     * @throws InterruptedException if the token is cancelled before the last row is delivered
+     */
+    public void generate(RowSink sink, CancellationToken token) throws InterruptedException {
+        // first row: each cell is a set of its own
+        for (int c = 0; c < width; c++) {
+            left[c] = c;
+            right[c] = c;
+        }
+        for (int y = 0; y < height; y++) {
+            token.check();
+            if (y < height-1) {
+                joinRandomly(sink, y);
+                extendDownwards(sink, y);
+            }
+            else {
+                joinAll(sink, y);
+            }
+            sink.acceptRow(y, eastOpen, southOpen);
+        }
+    }
+
+    /**
+     * Step 1: randomly tears down wallboards to the east between cells of different sets
+     * and joins their sets.
+     */
+    private void joinRandomly(RowSink sink, int y) {
+        for (int c = 0; c < width-1; c++) {
+            eastOpen[c] = right[c] != c+1 && random.nextBoolean() && !sink.isBlocked(c, y, CardinalDirection.East);
+            if (eastOpen[c])
+                join(c);
+        }
+        eastOpen[width-1] = false;
+    }
+
+    /**
+     * Step 2: randomly tears down wallboards to the south such that each set
+     * continues into the next row with at least one cell. A cell that does not
+     * continue is removed from its set and starts a new set in the next row.
+     */
+    private void extendDownwards(RowSink sink, int y) {
+        for (int c = 0; c < width; c++) {
+            // the last remaining member of a set must go down, others go down randomly
+            boolean down = (left[c] == c || random.nextBoolean()) && !sink.isBlocked(c, y, CardinalDirection.South);
+            southOpen[c] = down;
+            if (!down)
+                remove(c);
+        }
+    }
+
+    /**
+     * Step 3: for the last row, joins all different sets to obtain a connected maze.
+     */
+    private void joinAll(RowSink sink, int y) {
+        for (int c = 0; c < width-1; c++) {
+            eastOpen[c] = right[c] != c+1 && !sink.isBlocked(c, y, CardinalDirection.East);
+            if (eastOpen[c])
+                join(c);
+        }
+        eastOpen[width-1] = false;
+        for (int c = 0; c < width; c++)
+            southOpen[c] = false;
+    }
+
+    /**
+     * Merges the set of column c with the set of column c+1.
+     */
+    private void join(int c) {
+        right[left[c+1]] = right[c];
+        left[right[c]] = left[c+1];
+        right[c] = c+1;
+        left[c+1] = c;
+    }
+
+    /**
+     * Removes column c from its set, it becomes a set of its own.
+     */
+    private void remove(int c) {
+        left[right[c]] = left[c];
+        right[left[c]] = right[c];
+        left[c] = c;
+        right[c] = c;
+    }
+}
@@ -2,6 +2,7 @@ package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -12,7 +13,8 @@ import java.util.NoSuchElementException;
  * with a 2 dimensional grid and it encapsulates access to each
  * cell in that grid.
  *
- * The internal two-dimensional array matches with a grid of cells as follows:
+ * The grid of cells is stored row by row in a single array, cell (x,y) is at index y*width+x.
+ * The grid matches with the maze as follows:
  * floorplan[0,y] form the left border, hence there is a wallboard on  left.
  * floorplan[width-1,y] form the right border, hence there is a wallboard on right.
  * floorplan[x,0] form the top border, hence there is a wallboard on top.
@@ -91,15 +93,13 @@ public class Floorplan {
 
     public int width;
     public int height ;
-    private int[][] cells; // width x height array of cells, cells[width][height]
+    private final int[] cells; // width * height cells in row-major order, see getIndex()
     // each cell contains an integer which encodes presence/absence of wallboards
-    // cells[i][j] can be read as (i,j) coordinates much like (x,y) coordinates
-    // where the first dimension x grows towards the right and
-    // the second dimension y grows towards the bottom
-    // as if the (0,0) position is in the top-left corner.
-    // cells[i][j] is not intuitive in terms of rows and column indices in matrix notation
-    // as position (i,j) would be column i and row j which is opposite to the normal
-    // use of rows and columns indices for matrices.
+    // cell (x,y) is at index y*width+x where x grows towards the right and
+    // y grows towards the bottom as if the (0,0) position is in the top-left corner.
+    // A single array keeps the cells of a row next to each other in memory,
+    // which is the order in which most loops over the floorplan visit them.
+    private GenerationTrace trace = null; // optional, records changes to wallboards, borders and rooms
 
     /**
      * Constructor
@@ -109,7 +109,17 @@ public class Floorplan {
     public Floorplan(int w, int h) {
         width = w ;
         height = h ;
-        cells = new int[w][h];
+        cells = new int[w*h];
+    }
+
+    /**
+     * Constructor that uses the given array as storage for the cells without copying it.
+     * Used by wrap().
+     */
+    private Floorplan(int[] input, int w, int h) {
+        width = w ;
+        height = h ;
+        cells = input;
     }
 
     /**
@@ -119,20 +129,70 @@ public class Floorplan {
      * precondition input != null
      */
     public Floorplan(int[][] input){
-        // Alternative, 2d array is a 1d array with arrays as elements
-        width = input.length ;
-        height = input[0].length ;
-        cells = new int[width][];
-        for(int i = 0; i < width; i++)
-            cells[i] = input[i].clone(); // clone row
-		/* Basic version
-		this(input.length, input[0].length);
-		for (int i = 0; i < width; i++) {
-			for (int j = 0; j < height; j++) {
-				cells[i][j] = input[i][j];
-			}
-		}
-		*/
+        this(input.length, input[0].length);
+        // input is column by column, the cells are row by row
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++)
+                cells[y*width + x] = input[x][y];
+        }
+    }
+
+    /**
+     * Constructor that dimensions and initializes cells with the values from the given array
+     * in row-major order, i.e. cell (x,y) is at index {@code y*w+x}, see {@link #copyCells(int[])}.
+     * @param w width of the floorplan
+     * @param h height of the floorplan
+     * @param input provides input data to copy cell content from, length at least {@code w*h}
+     */
+    public Floorplan(int w, int h, int[] input) {
+        this(w, h);
+        System.arraycopy(input, 0, cells, 0, w*h);
+    }
+
+    /**
+     * Gives a floorplan that uses the given array in row-major order as storage for its cells,
+     * same layout as for {@link #Floorplan(int, int, int[])} but without copying the values.
+     * Changes to the floorplan show in the array and vice versa.
+     * @param w width of the floorplan
+     * @param h height of the floorplan
+     * @param input storage for the cells, length exactly {@code w*h}
+     * @return floorplan backed by input
+     */
+    public static Floorplan wrap(int w, int h, int[] input) {
+        if (input.length != w*h)
+            throw new IllegalArgumentException("Floorplan: array of length " + input.length + " does not match " + w + "x" + h);
+        return new Floorplan(input, w, h);
+    }
+
+    /**
+     * Copies the content of all cells into the given array in row-major order,
+     * i.e. cell (x,y) goes to index {@code y*width+x}.
+     * @param target receives the content, length at least {@code width*height}
+     */
+    public void copyCells(int[] target) {
+        System.arraycopy(cells, 0, target, 0, width*height);
+    }
+
+    /**
+     * Copies the content of all cells from the given floorplan of the same dimensions.
+     * @param other floorplan to copy from, {@code other.width == width, other.height == height}
+     */
+    public void copyCells(Floorplan other) {
+        if (width != other.width || height != other.height)
+            throw new IllegalArgumentException("Floorplan: dimensions do not match");
+        System.arraycopy(other.cells, 0, cells, 0, width*height);
+    }
+
+    /**
+     * Gives the index of cell (x,y) in the row-major order of
+     * {@link #copyCells(int[])} and {@link #getValueOfCell(int)}.
+     * Neighbors in direction (dx,dy) are at index {@code getIndex(x,y) + dx + dy*width}.
+     * @param x coordinate of cell, {@code 0 <= x < width}
+     * @param y coordinate of cell, {@code 0 <= y < height}
+     * @return index {@code y*width+x}
+     */
+    public int getIndex(int x, int y) {
+        return y*width + x;
     }
 
     /**
@@ -144,11 +204,8 @@ public class Floorplan {
     public void initialize() {
         int x, y;
         // Step 1: erect wallboards everywhere, reset visited flag
-        for (x = 0; x < width; x++) {
-            for (y = 0; y < height; y++) {
-                setBitToOne(x, y, (CW_VISITED | CW_ALL));
-            }
-        }
+        // all other bits are cleared such that a floorplan can be reused
+        Arrays.fill(cells, CW_VISITED | CW_ALL);
         // Step 2: mark wallboards on exterior walls as a border
         // Assumption: (0,0) at top-left corner
         // mark exterior wallboards to top and bottom
@@ -161,6 +218,25 @@ public class Floorplan {
             setBitToOne(0, y, getBoundForBit(CW_LEFT));
             setBitToOne(width-1, y, getBoundForBit(CW_RIGHT));
         }
+        // a trace starts with an initialized floorplan
+        if (null != trace)
+            trace.start(width, height);
+    }
+
+    /**
+     * Sets a trace that records all changes to wallboards, borders and rooms
+     * from the next call of initialize() on, see GenerationTrace.
+     * @param trace the trace, null to stop recording
+     */
+    public void setTrace(GenerationTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * @return the trace that records changes, null if there is none
+     */
+    public GenerationTrace getTrace() {
+        return trace;
     }
 
     /**
@@ -180,13 +256,7 @@ public class Floorplan {
         final Floorplan o = (Floorplan)other ; // type cast safe after checking class objects
         if ((width != o.width)||(height != o.height))
             return false ;
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                if (cells[i][j] != o.cells[i][j])
-                    return false ;
-            }
-        }
-        return true ;
+        return Arrays.equals(cells, o.cells) ;
     }
     /**
      * Hashcode method is not implemented as it is not needed here.
@@ -207,7 +277,16 @@ public class Floorplan {
      */
     public int getValueOfCell( int x, int y )
     {
-        return cells[x][y] ;
+        return cells[y*width + x] ;
+    }
+    /**
+     * Get the value of a cell at the given index, see {@link #getIndex(int, int)}.
+     * @param index of cell, {@code 0 <= index < width*height}
+     * @return value with internal encoding of wallboards and other attributes for the cell
+     */
+    public int getValueOfCell( int index )
+    {
+        return cells[index] ;
     }
 
     /**
@@ -219,11 +298,22 @@ public class Floorplan {
      * @return true if neighbor in the given direction is new and wallboard can be taken down, false otherwise
      */
     public boolean canTearDown(Wallboard wallboard) {
-        int x = wallboard.getX();
-        int y = wallboard.getY();
-        int[] d = wallboard.getDirection().getDirection() ;
-        int dx = d[0];
-        int dy = d[1];
+        return canTearDown(wallboard.getX(), wallboard.getY(), wallboard.getDirection());
+    }
+    /**
+     * checks if cell (x,y) and adjacent neighbor in the given direction are not separated by a border
+     * and the neighbor has not been visited before.
+     * Same as {@link #canTearDown(Wallboard)} but does not need a wallboard object.
+     * @param x coordinate of cell
+     * @param y coordinate of cell
+     * @param cd direction of the wallboard
+     * precondition borders limit the outside of the maze area
+     * precondition {@code 0 <= x < width, 0 <= y < height}
+     * @return true if neighbor in the given direction is new and wallboard can be taken down, false otherwise
+     */
+    public boolean canTearDown(int x, int y, CardinalDirection cd) {
+        int dx = cd.getDx();
+        int dy = cd.getDy();
         // borders limit rooms (but for potential doors) and the outside limit of the maze
         if (hasBorder(x, y, dx, dy))
             return false;
@@ -238,11 +328,20 @@ public class Floorplan {
      * should not be removed, like a load-bearing wall.
      */
     public boolean isPartOfBorder(Wallboard wallboard) {
-        int x = wallboard.getX();
-        int y = wallboard.getY();
-        int[] d = wallboard.getDirection().getDirection() ;
-        int dx = d[0];
-        int dy = d[1];
+        return isPartOfBorder(wallboard.getX(), wallboard.getY(), wallboard.getDirection());
+    }
+    /**
+     * checks if the wallboard of cell (x,y) in the given direction contributes to a border.
+     * Same as {@link #isPartOfBorder(Wallboard)} but does not need a wallboard object.
+     * @param x coordinate of cell
+     * @param y coordinate of cell
+     * @param cd direction of the wallboard
+     * precondition {@code 0 <= x < width, 0 <= y < height}
+     * @return true if that side is marked as a border, false otherwise
+     */
+    public boolean isPartOfBorder(int x, int y, CardinalDirection cd) {
+        int dx = cd.getDx();
+        int dy = cd.getDy();
         // borders limit rooms (but for potential doors)
         // and the outside limit of the maze
         return hasBorder(x, y, dx, dy);
@@ -313,6 +412,8 @@ public class Floorplan {
             return ;
         }
         setBitToZero(x, y, bit);
+        if (null != trace)
+            trace.record(GenerationTrace.MARK, x, y, GenerationTrace.MARK_EXIT);
         //System.out.println("exit position set to zero: " + remotex + " " + remotey + " " + bit + ":" + cells.hasMaskedBitsFalse(remotex, remotey, bit)
         //		+ ", Corner case: " + ((0 == remotex && 0 == remotey) || (0 == remotex &&  height-1 == remotey) || (width-1 == remotex && 0 == remotey) || (width-1 == remotex && height-1 == remotey)));
     }
@@ -423,21 +524,18 @@ public class Floorplan {
      * @param ryl 2nd corner, y coordinate
      */
     public void markAreaAsRoom(int rw, int rh, int rx, int ry, int rxl, int ryl) {
-        // Step 1:
-        // clear all cells in area of room from all wallboards and borders
-        // mark all cells in area as being inside the room
+        markAreaAsRoom(rw, rh, rx, ry, rxl, ryl, new RandomStream(SingleRandom.getRandom().nextInt()));
+    }
+    /**
+     * Marks the given area as a room like {@link #markAreaAsRoom(int, int, int, int, int, int)}
+     * but uses the given random number stream to select candidates for doors.
+     * @param random the random number stream, e.g. the one of a maze builder
+     */
+    public void markAreaAsRoom(int rw, int rh, int rx, int ry, int rxl, int ryl, RandomStream random) {
+        // Step 1 and 2: room without doors
+        markArea(rx, ry, rxl, ryl);
         int x;
         int y;
-        for (x = rx; x <= rxl; x++)
-            for (y = ry; y <= ryl; y++) {
-                setAllToZero(x, y);
-                setInRoomToOne(x, y);
-            }
-        // Step 2: set border flag at the perimeter
-        // this distinguishes these wallboards as special
-        // and the mazebuilder algorithm can leave them in place
-        // if possible
-        encloseArea(rx, ry, rxl, ryl);
         // Step 3: prepare for doors
         // we only remove the border flag for some
         // randomly selected wallboards on the perimeter.
@@ -445,7 +543,6 @@ public class Floorplan {
         // so a maze generation algorithm can identify
         // these wallboards and delete them to get into the room
         int numBoards = (rw+rh)*2; // counter for the total number of wallboards
-        SingleRandom random = SingleRandom.getRandom() ;
         // pick at most 5 wallboards
         for (int ct = 0; ct != 5; ct++) {
             int door = random.nextIntWithinInterval(0, numBoards-1); // pick a random wallboard
@@ -467,8 +564,45 @@ public class Floorplan {
             // The wallboard itself is left
             // for the maze builder to decide to tear it down.
             deleteBorder(x+rx, y+ry, dx, dy);
+            if (null != trace)
+                trace.record(GenerationTrace.DOOR, x+rx, y+ry, CardinalDirection.getDirection(dx, dy).ordinal());
         }
     }
+    /**
+     * Marks a given area as a room without doors, the first two steps of markAreaAsRoom.
+     * Also used to replay a trace.
+     * @param rx 1st corner, x coordinate
+     * @param ry 1st corner, y coordinate
+     * @param rxl 2nd corner, x coordinate
+     * @param ryl 2nd corner, y coordinate
+     */
+    void markArea(int rx, int ry, int rxl, int ryl) {
+        if (null != trace)
+            trace.recordRoom(rx, ry, rxl, ryl);
+        // Step 1:
+        // clear all cells in area of room from all wallboards and borders
+        // mark all cells in area as being inside the room
+        for (int y = ry; y <= ryl; y++)
+            for (int x = rx; x <= rxl; x++) {
+                setAllToZero(x, y);
+                setInRoomToOne(x, y);
+            }
+        // Step 2: set border flag at the perimeter
+        // this distinguishes these wallboards as special
+        // and the mazebuilder algorithm can leave them in place
+        // if possible
+        encloseArea(rx, ry, rxl, ryl);
+    }
+    /**
+     * Removes the border flag of a wallboard on both sides, which makes it a candidate for a door of a room.
+     * Only used to replay a trace, see markAreaAsRoom for the regular use.
+     * @param x coordinate of cell, {@code 0 <= x < width}
+     * @param y coordinate of cell, {@code 0 <= y < height}
+     * @param cd direction of the wallboard, the neighbor must be inside the maze
+     */
+    void deleteBorder(int x, int y, CardinalDirection cd) {
+        deleteBorder(x, y, cd.getDx(), cd.getDy());
+    }
     /**
      * Erects wallboards marked as borders on the perimeter of an internal area
      * to fully enclose area.
@@ -580,14 +714,27 @@ public class Floorplan {
      * @param internalWall denotes if wallboard is added on both cells (true) or just for the given cell (false)
      */
     public void addWallboard(Wallboard wallboard, boolean internalWall) {
-        int x = wallboard.getX();
-        int y = wallboard.getY();
-        int[] d = wallboard.getDirection().getDirection() ;
+        addWallboard(wallboard.getX(), wallboard.getY(), wallboard.getDirection(), internalWall);
+    }
+    /**
+     * Add a wallboard. If internal it is added on both sides
+     * between to adjacent cells (x,y) and (x+dx,y+dy).
+     * Same as {@link #addWallboard(Wallboard, boolean)} but does not need a wallboard object.
+     * @param x coordinate of cell, {@code 0 <= x < width}
+     * @param y coordinate of cell, {@code 0 <= y < height}
+     * @param cd direction of the wallboard
+     * @param internalWall denotes if wallboard is added on both cells (true) or just for the given cell (false)
+     */
+    public void addWallboard(int x, int y, CardinalDirection cd, boolean internalWall) {
+        final int dx = cd.getDx();
+        final int dy = cd.getDy();
+        if (null != trace)
+            trace.record(internalWall ? GenerationTrace.ADD : GenerationTrace.ADD_ONE_SIDED, x, y, cd.ordinal());
         // add wallboard on (x,y)
-        setWallToOne(x, y, d[0], d[1]);
+        setWallToOne(x, y, dx, dy);
         // add same wallboard but for adjacent cell
         if (internalWall)
-            setWallToOne(x+d[0], y+d[1], -d[0], -d[1]);
+            setWallToOne(x+dx, y+dy, -dx, -dy);
     }
 
     /**
@@ -600,20 +747,83 @@ public class Floorplan {
      * @param wallboard provides (x,y) coordinate of cell and direction
      */
     public void deleteWallboard(Wallboard wallboard) {
-        int x = wallboard.getX();
-        int y = wallboard.getY();
-        int[] d = wallboard.getDirection().getDirection() ;
-        int dx = d[0];
-        int dy = d[1];
+        deleteWallboard(wallboard.getX(), wallboard.getY(), wallboard.getDirection());
+    }
+    /**
+     * Delete both wallboards between to adjacent cells (x,y) and (x+dx,y+dy)
+     * to create an opening.
+     * Same as {@link #deleteWallboard(Wallboard)} but does not need a wallboard object.
+     * @param x coordinate of cell, {@code 0 <= x < width}
+     * @param y coordinate of cell, {@code 0 <= y < height}
+     * @param cd direction of the wallboard
+     */
+    public void deleteWallboard(int x, int y, CardinalDirection cd) {
+        int dx = cd.getDx();
+        int dy = cd.getDy();
         // delete wallboard on (x,y)
         setWallToZero(x, y, dx, dy);
         // delete same wallboard but for adjacent cell
         setWallToZero(x+dx, y+dy, -dx, -dy);
+        if (null != trace)
+            trace.record(GenerationTrace.DELETE, x, y, cd.ordinal());
         /////////////////// THE FOLLOWING 2 LINES ARE USED FOR GRADING PROJECT 2, DO NOT ALTER OR DELETE /////////////////
         if (deepdebugWall) // for debugging: track sequence of walls that are deleted
             logWall( x,  y,  dx,  dy);
         /////////////////// END OF SPECIAL CODE FOR GRADING //////////////////////////////////////////////////////////////
     }
+    /**
+     * Gives the wallboards of a segment of row y that can be taken down, one bit per cell.
+     * Bit i of the result refers to cell (x0+i, y). It is set if that cell
+     * has a wallboard in the given direction that is not part of a border.
+     * Bits for positions beyond the width of the maze are zero.
+     * @param x0 x coordinate of the first cell of the segment, {@code 0 <= x0 < width}
+     * @param y coordinate of the row, {@code 0 <= y < height}
+     * @param cd direction of the wallboards
+     * @return bit mask for up to 64 cells starting at (x0,y)
+     */
+    public long getTearableWallboards(int x0, int y, CardinalDirection cd) {
+        final int bit = getCWConstantForDirection(cd);
+        final int mask = bit | getBoundForBit(bit);
+        final int n = Math.min(64, width - x0);
+        final int start = y*width + x0;
+        long result = 0;
+        for (int i = 0; i < n; i++) {
+            if ((cells[start+i] & mask) == bit)
+                result |= 1L << i;
+        }
+        return result;
+    }
+    /**
+     * Deletes wallboards of a segment of row y, one bit per cell.
+     * For each bit i that is set in the mask, the wallboard between cell (x0+i, y)
+     * and its neighbor in the given direction is deleted on both sides,
+     * same as {@link #deleteWallboard(int, int, CardinalDirection)} but without
+     * creating objects for each wallboard.
+     * East and west only touch cells of row y, north and south also touch the adjacent row,
+     * so rows can be updated by different threads as long as they do not share a cell.
+     * @param x0 x coordinate of the first cell of the segment, {@code 0 <= x0 < width}
+     * @param y coordinate of the row, {@code 0 <= y < height}
+     * @param cd direction of the wallboards
+     * @param mask bit mask for up to 64 cells starting at (x0,y), neighbors must be inside the maze
+     */
+    public void deleteWallboards(int x0, int y, CardinalDirection cd, long mask) {
+        final int dx = cd.getDx();
+        final int dy = cd.getDy();
+        final int bit = getCWConstantForDirection(cd);
+        final int opposite = getCWConstantForDirection(cd.oppositeDirection());
+        final int neighbor = dx + dy*width; // offset of the neighbor's index
+        while (mask != 0) {
+            final int x = x0 + Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1; // clear lowest set bit
+            final int index = y*width + x;
+            cells[index] &= ~bit;
+            cells[index + neighbor] &= ~opposite;
+            if (null != trace)
+                trace.record(GenerationTrace.DELETE, x, y, cd.ordinal());
+            if (deepdebugWall) // same log as for deleteWallboard
+                logWall(x, y, dx, dy);
+        }
+    }
     /**
      * Add wallboards in either north or west direction for the given wall.
      * Wall coordinates need to be rescaled by map_unit to translate into
@@ -722,25 +932,19 @@ public class Floorplan {
      * @return the matching integer value (CW_ constant)
      */
     protected int getCWConstantForDirection(CardinalDirection dir) {
-		/* compare with definition for consistency
-		static final int CW_TOP = 1;  // 2^0
-		static final int CW_BOT = 2;  // 2^1
-		static final int CW_LEFT = 4; // 2^2
-		static final int CW_RIGHT = 8;// 2^3
-		 */
-        switch(dir) {
-            case North :
-                return CW_TOP; // flipped: CW_TOP ;
-            case East :
-                return CW_RIGHT ;
-            case South :
-                return CW_BOT; // flipped CW_BOT ;
-            case West :
-                return CW_LEFT ;
-            default:
-                throw new RuntimeException("Unsupported value in enum type") ;
-        }
+        return getWallBit(dir);
+    }
+    /**
+     * Gives the CW_ constant of the wallboard in the given direction,
+     * for code that works on the cell values without a floorplan, e.g. CompactMaze.
+     * @param dir gives the direction.
+     * @return the matching integer value (CW_ constant)
+     */
+    static int getWallBit(CardinalDirection dir) {
+        return CW_FOR_DIRECTION[dir.ordinal()];
     }
+    // CW_ constants indexed by ordinal of CardinalDirection: north, east, south, west
+    private static final int[] CW_FOR_DIRECTION = { CW_TOP, CW_RIGHT, CW_BOT, CW_LEFT };
     ////////////////// iterator to access continuous sequences of wallboards //////////////////////////////////////////
     public Iterator<int[]> iterator(int x, int y, CardinalDirection cd) {
         return new SequenceIterator(x,y,cd);
@@ -906,7 +1110,7 @@ public class Floorplan {
      * @param cw_bit like CW_LEFT, CW_RIGHT, CW_TOP, CW_BOTTOM
      */
     private void setBitToZero(int x, int y, int cw_bit) {
-        cells[x][y] &= ~cw_bit;
+        cells[y*width + x] &= ~cw_bit;
     }
     /**
      * Sets all wallboard bits to zero for a given cell
@@ -923,10 +1127,10 @@ public class Floorplan {
     // better to directly change client classes
     //
     protected boolean hasMaskedBitsTrue(int x, int y, int bitmask) {
-        return (cells[x][y] & bitmask) != 0;
+        return (cells[y*width + x] & bitmask) != 0;
     }
     protected boolean hasMaskedBitsFalse(int x, int y, int bitmask) {
-        return (cells[x][y] & bitmask) == 0;
+        return (cells[y*width + x] & bitmask) == 0;
     }
 
     /**
@@ -947,10 +1151,11 @@ public class Floorplan {
 		}
 		return bit;
 		*/
-        // changed to reduce chances for inconsistent mappings
-        CardinalDirection dir = CardinalDirection.getDirection(dx, dy);
-        return getCWConstantForDirection(dir);
+        // table lookup with the same mapping as getCWConstantForDirection, see CW_FOR_DELTA
+        return CW_FOR_DELTA[dx + 2*dy + 2];
     }
+    // CW_ constants indexed by dx + 2*dy + 2: (0,-1) top, (-1,0) left, unused, (1,0) right, (0,1) bottom
+    private static final int[] CW_FOR_DELTA = { CW_TOP, CW_LEFT, 0, CW_RIGHT, CW_BOT };
     /**
      * Sets bits to 1 for given bitmask
      * @param x coordinate of cell, {@code 0 <= x < width}
@@ -958,7 +1163,7 @@ public class Floorplan {
      * @param bitmask
      */
     private void setBitToOne(int x, int y, int bitmask) {
-        cells[x][y] |= bitmask ;
+        cells[y*width + x] |= bitmask ;
     }
 
     ///////////////// code for debugging ///////////////////////////////////////
@@ -976,7 +1181,7 @@ public class Floorplan {
         {
             prefix = " i:" + i + " j:";
             for (int j = 0 ; j < height ; j++)
-                s += prefix + j + "=" + cells[i][j] ;
+                s += prefix + j + "=" + cells[j*width + i] ;
             s += "\n" ;
         }
         return s ;
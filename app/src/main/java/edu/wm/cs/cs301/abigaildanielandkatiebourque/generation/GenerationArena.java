@@ -0,0 +1,267 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Keeps floorplans, distance matrices and working arrays of finished maze generations
+ * such that later generations of the same dimensions can reuse them instead of
+ * allocating new ones. This reduces pauses for garbage collection if mazes are
+ * generated over and over again, e.g. in repeated play sessions.
+ *
+ * Ownership is handed over explicitly. A builder acquires a floorplan and a distance
+ * matrix for an order. If the maze is delivered, both belong to the maze. If the order
+ * is cancelled, the builder releases them right away. The app releases a maze once it is
+ * done with it, e.g. when the next maze replaces it. A maze that is kept in a MazeCache
+ * is not taken back, as it may be delivered again. Caches tell the arena which mazes they keep.
+ * A maze that is delivered to a ProgressiveOrder before its BSP tree is complete stays
+ * with its builder till the tree is done. Releasing it cancels the tree generation,
+ * and its objects are not taken back as the builder may still use them.
+ * Objects must not be used after they have been released.
+ *
+ * The arena keeps at most MAX_PER_SIZE objects of each kind and size and
+ * at most BUDGET bytes in total. Objects that do not fit are left to the garbage collector,
+ * so the arrays of huge mazes are not held in memory after their build.
+ * Design implements Singleton pattern for the arena that is shared by the app.
+ */
+
+public class GenerationArena {
+    /** max number of objects of one kind and size that are kept for reuse */
+    static final int MAX_PER_SIZE = 2;
+    /** max sum of the sizes of all objects that are kept for reuse, unit is bytes */
+    static final long BUDGET = 16L << 20;
+
+    /** the shared instance of this class. */
+    private static GenerationArena instance = null;
+    /** lock to make the creation of the shared instance thread safe */
+    private static final Object LOCK = new Object();
+
+    // released objects, keyed by dimensions or length
+    private final Map<Long, ArrayDeque<Floorplan>> floorplans = new HashMap<Long, ArrayDeque<Floorplan>>();
+    private final Map<Long, ArrayDeque<Distance>> distances = new HashMap<Long, ArrayDeque<Distance>>();
+    private final Map<Long, ArrayDeque<int[]>> intArrays = new HashMap<Long, ArrayDeque<int[]>>();
+    // delivered mazes whose BSP tree is still in production, with the token of the build
+    private final Map<Maze, CancellationToken> pending = new IdentityHashMap<Maze, CancellationToken>();
+    // mazes kept in caches, with the number of caches that keep them
+    private final Map<Maze, Integer> kept = new IdentityHashMap<Maze, Integer>();
+    private long size; // sum of the sizes of all objects that are kept, unit is bytes
+
+    /**
+     * Delivers the arena that is shared by the app.
+     * @return the arena
+     */
+    public static GenerationArena getArena() {
+        synchronized(LOCK) {
+            if (null == instance)
+                instance = new GenerationArena();
+        }
+        return instance;
+    }
+
+    /**
+     * Gives a floorplan of the given dimensions. Its content is undefined,
+     * call initialize() before use.
+     * @param width width of the floorplan
+     * @param height height of the floorplan
+     * @return a released floorplan if there is one, a new one otherwise
+     */
+    public synchronized Floorplan acquireFloorplan(int width, int height) {
+        final Floorplan result = poll(floorplans, getKey(width, height), getBytes(width*height));
+        return (null != result) ? result : new Floorplan(width, height);
+    }
+
+    /**
+     * Gives a distance matrix of the given dimensions. Its content is undefined,
+     * call computeDistances() before use.
+     * @param width width of the matrix
+     * @param height height of the matrix
+     * @return a released distance matrix if there is one, a new one otherwise
+     */
+    public synchronized Distance acquireDistance(int width, int height) {
+        final Distance result = poll(distances, getKey(width, height), getBytes(width*height));
+        return (null != result) ? result : new Distance(width, height);
+    }
+
+    /**
+     * Gives a working array of the given length. Its content is undefined.
+     * @param length length of the array
+     * @return a released array if there is one, a new one otherwise
+     */
+    public synchronized int[] acquireInts(int length) {
+        final int[] result = poll(intArrays, (long)length, getBytes(length));
+        return (null != result) ? result : new int[length];
+    }
+
+    /**
+     * Takes back a floorplan that is no longer used.
+     * @param floorplan the floorplan, ignored if null
+     */
+    public synchronized void release(Floorplan floorplan) {
+        if (null != floorplan)
+            offer(floorplans, getKey(floorplan.width, floorplan.height), getBytes(floorplan.width*floorplan.height), floorplan);
+    }
+
+    /**
+     * Takes back a distance matrix that is no longer used.
+     * @param dists the distance matrix, ignored if null
+     */
+    public synchronized void release(Distance dists) {
+        if (null != dists) {
+            final int[][] values = dists.getAllDistanceValues();
+            offer(distances, getKey(values.length, values[0].length), getBytes(values.length*values[0].length), dists);
+        }
+    }
+
+    /**
+     * Takes back a working array that is no longer used.
+     * @param array the array, ignored if null
+     */
+    public synchronized void releaseInts(int[] array) {
+        if (null != array)
+            offer(intArrays, (long)array.length, getBytes(array.length), array);
+    }
+
+    /**
+     * Takes back the floorplan and distance matrix of a maze that is no longer used.
+     * Nothing happens if the maze is kept in a MazeCache.
+     * @param maze the maze, ignored if null
+     */
+    public void release(Maze maze) {
+        if (null == maze)
+            return;
+        synchronized(this) {
+            final CancellationToken token = pending.get(maze);
+            if (null != token) {
+                // nobody waits for the tree anymore
+                token.cancel();
+                return;
+            }
+            if (kept.containsKey(maze))
+                return;
+            release(maze.getFloorplan());
+            release(maze.getMazedists());
+        }
+    }
+
+    /**
+     * Marks a maze as kept in a cache such that release(Maze) does not take back its objects.
+     * Each call must be matched by a call to unkeep when the cache drops the maze.
+     * @param maze the maze
+     */
+    synchronized void keep(Maze maze) {
+        final Integer count = kept.get(maze);
+        kept.put(maze, (null == count) ? 1 : count + 1);
+    }
+
+    /**
+     * Ends a keep(), called by a cache that drops the maze.
+     * @param maze the maze
+     */
+    synchronized void unkeep(Maze maze) {
+        final Integer count = kept.get(maze);
+        if (null == count)
+            return;
+        if (count > 1)
+            kept.put(maze, count - 1);
+        else
+            kept.remove(maze);
+    }
+
+    /**
+     * Marks a delivered maze as still in use by its builder such that
+     * release(Maze) does not take back its objects but cancels the build.
+     * @param maze the maze
+     * @param token token of the build that completes the maze
+     */
+    synchronized void hold(Maze maze, CancellationToken token) {
+        pending.put(maze, token);
+    }
+
+    /**
+     * Ends hold(), called by the builder once it is done with the maze.
+     * @param maze the maze
+     */
+    synchronized void unhold(Maze maze) {
+        pending.remove(maze);
+    }
+
+    /**
+     * Drops all objects that are kept for reuse.
+     */
+    public synchronized void clear() {
+        floorplans.clear();
+        distances.clear();
+        intArrays.clear();
+        size = 0;
+    }
+
+    /**
+     * Gives the number of objects of all kinds that are kept for reuse.
+     * @return number of objects
+     */
+    public synchronized int getCount() {
+        return count(floorplans) + count(distances) + count(intArrays);
+    }
+
+    /**
+     * Gives the sum of the sizes of all objects that are kept for reuse.
+     * @return size in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private <T> T poll(Map<Long, ArrayDeque<T>> pool, Long key, long bytes) {
+        final ArrayDeque<T> queue = pool.get(key);
+        final T result = (null != queue) ? queue.pollFirst() : null;
+        if (null != result)
+            size -= bytes;
+        return result;
+    }
+
+    private <T> void offer(Map<Long, ArrayDeque<T>> pool, Long key, long bytes, T object) {
+        if (size + bytes > BUDGET)
+            return;
+        ArrayDeque<T> queue = pool.get(key);
+        if (null == queue) {
+            queue = new ArrayDeque<T>(MAX_PER_SIZE);
+            pool.put(key, queue);
+        }
+        // an object that is released twice must not be handed out twice
+        if (queue.size() < MAX_PER_SIZE && !containsSame(queue, object)) {
+            queue.offerFirst(object);
+            size += bytes;
+        }
+    }
+
+    /**
+     * Tells if the queue holds the given object itself, Floorplan.equals compares content.
+     */
+    private static <T> boolean containsSame(ArrayDeque<T> queue, T object) {
+        for (T element : queue) {
+            if (element == object)
+                return true;
+        }
+        return false;
+    }
+
+    private static <T> int count(Map<Long, ArrayDeque<T>> pool) {
+        int result = 0;
+        for (ArrayDeque<T> queue : pool.values())
+            result += queue.size();
+        return result;
+    }
+
+    /**
+     * Estimates the size of an object with the given number of int values.
+     */
+    private static long getBytes(int values) {
+        return 4L * values;
+    }
+
+    private static Long getKey(int width, int height) {
+        return ((long)width << 32) | height;
+    }
+}
@@ -0,0 +1,288 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the changes that a maze builder makes to a floorplan in a compact binary form
+ * such that the floorplan can be reconstructed later on without generating it again.
+ *
+ * The text log of deleted wallboards that Floorplan keeps for grading (deepdebugWall)
+ * holds a line of text for each wallboard and is too slow to leave on. A trace holds
+ * a single int for each change:
+ * bits 29-31 hold the type of the event, bits 27-28 the direction as ordinal of CardinalDirection
+ * or a subcode for marks, bits 13-26 the x coordinate and bits 0-12 the y coordinate.
+ * Events are kept in memory while the maze is generated and written to a file in one go
+ * with save(). If a trace directory is set, maze builders save the trace of each floorplan
+ * right after they deliver the maze, otherwise it is up to the caller to save the trace
+ * of a delivered floorplan, see Floorplan.getTrace(). Replaying a trace only sets bits in a floorplan, which is much faster than
+ * generating it as no random numbers, sets or distances are involved.
+ *
+ * Visited flags are not traced, they are only of interest while a maze is generated.
+ * A replayed floorplan has all of its cells marked as visited.
+ *
+ * File format, all values are big endian ints: magic number, version, width, height,
+ * number of events, events.
+ */
+
+public class GenerationTrace {
+    /** if true, maze builders record a trace for each floorplan they generate */
+    public static boolean enabled = false;
+    /** if not null and traces are enabled, maze builders save each trace to a new file in this directory */
+    public static File directory = null;
+
+    // types of events
+    /** a wallboard is deleted on both sides */
+    static final int DELETE = 0;
+    /** a wallboard is added on both sides */
+    static final int ADD = 1;
+    /** a wallboard is added for the given cell only */
+    static final int ADD_ONE_SIDED = 2;
+    /** a position is marked, the direction holds a subcode */
+    static final int MARK = 3;
+    /** the border of a room is removed for a door */
+    static final int DOOR = 4;
+    // subcodes for marks
+    /** upper left corner of a room, always followed by the lower right corner */
+    static final int MARK_ROOM_CORNER = 0;
+    /** lower right corner of a room */
+    static final int MARK_ROOM_OPPOSITE_CORNER = 1;
+    /** exit position */
+    static final int MARK_EXIT = 2;
+
+    /** max width or height of a traced floorplan */
+    static final int MAX_SIZE = 1 << 13;
+
+    private static final int MAGIC = 0x4D5A5452; // "MZTR"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5;
+    private static final int BUFFER_SIZE = 1 << 16; // bytes written or read at once
+    private static final long START = System.currentTimeMillis(); // distinguishes files of several runs
+    private static final AtomicInteger saved = new AtomicInteger(); // number of traces saved to the directory
+
+    private int width;
+    private int height;
+    private int[] events = new int[1024];
+    private int count;
+
+    /**
+     * Starts a new trace for a freshly initialized floorplan, all previous events are dropped.
+     * @param width width of the floorplan
+     * @param height height of the floorplan
+     */
+    public synchronized void start(int width, int height) {
+        if (width >= MAX_SIZE || height >= MAX_SIZE)
+            throw new RuntimeException("GenerationTrace: floorplan too large for a trace: " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        count = 0;
+    }
+
+    /**
+     * Appends an event. Builders may change a floorplan on several threads at once,
+     * so events are recorded under a lock.
+     * @param type type of event
+     * @param x x coordinate of cell
+     * @param y y coordinate of cell
+     * @param dir ordinal of CardinalDirection or subcode of a mark
+     */
+    synchronized void record(int type, int x, int y, int dir) {
+        append(pack(type, x, y, dir));
+    }
+
+    /**
+     * Appends the two corners of a room as adjacent events.
+     */
+    synchronized void recordRoom(int rx, int ry, int rxl, int ryl) {
+        append(pack(MARK, rx, ry, MARK_ROOM_CORNER));
+        append(pack(MARK, rxl, ryl, MARK_ROOM_OPPOSITE_CORNER));
+    }
+
+    private void append(int event) {
+        if (count == events.length) {
+            final int[] tmp = new int[2*count];
+            System.arraycopy(events, 0, tmp, 0, count);
+            events = tmp;
+        }
+        events[count++] = event;
+    }
+
+    /**
+     * @return number of recorded events
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    static int pack(int type, int x, int y, int dir) {
+        return (type << 29) | (dir << 27) | (x << 13) | y;
+    }
+
+    static int getType(int event) {
+        return event >>> 29;
+    }
+
+    static int getDir(int event) {
+        return (event >>> 27) & 3;
+    }
+
+    static int getX(int event) {
+        return (event >>> 13) & (MAX_SIZE - 1);
+    }
+
+    static int getY(int event) {
+        return event & (MAX_SIZE - 1);
+    }
+
+    /**
+     * Writes the trace to the given file.
+     * @param file the file, overwritten if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save(File file) throws IOException {
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            final FileChannel channel = out.getChannel();
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(count);
+            int i = 0;
+            while (true) {
+                final IntBuffer ints = buffer.asIntBuffer();
+                final int n = Math.min(ints.remaining(), count - i);
+                ints.put(events, i, n);
+                buffer.position(buffer.position() + 4*n);
+                i += n;
+                buffer.flip();
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+                buffer.clear();
+                if (i == count)
+                    break;
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes the trace to a new file in the trace directory.
+     * Files are named by the time the process started saving traces and a running number,
+     * such that builders on several threads never write to the same file.
+     * @param dir the directory, usually the trace directory
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    public File saveTo(File dir) throws IOException {
+        final File file = new File(dir, "trace-" + START + "-" + saved.incrementAndGet() + ".bin");
+        save(file);
+        return file;
+    }
+
+    /**
+     * Reads a trace from the given file.
+     * @param file the file written by save()
+     * @return the trace
+     * @throws IOException if the file cannot be read or is not a trace
+     */
+    public static GenerationTrace load(File file) throws IOException {
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            final FileChannel channel = in.getChannel();
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            fill(channel, buffer, 4*HEADER_SIZE);
+            if (MAGIC != buffer.getInt() || VERSION != buffer.getInt())
+                throw new IOException("GenerationTrace: not a trace: " + file);
+            final GenerationTrace result = new GenerationTrace();
+            result.width = buffer.getInt();
+            result.height = buffer.getInt();
+            result.count = buffer.getInt();
+            result.events = new int[Math.max(1, result.count)];
+            int i = 0;
+            while (i < result.count) {
+                buffer.compact();
+                fill(channel, buffer, 4*Math.min(BUFFER_SIZE/4, result.count - i));
+                final IntBuffer ints = buffer.asIntBuffer();
+                final int n = Math.min(ints.remaining(), result.count - i);
+                ints.get(result.events, i, n);
+                buffer.position(buffer.position() + 4*n);
+                i += n;
+            }
+            return result;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads from the channel till the buffer holds at least the given number of bytes
+     * and flips it for reading.
+     */
+    private static void fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0)
+                throw new EOFException("GenerationTrace: trace is truncated");
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Reconstructs the floorplan that the trace was recorded for.
+     * @return a new floorplan with the same wallboards, borders, rooms and exit
+     */
+    public synchronized Floorplan replay() {
+        final Floorplan floorplan = new Floorplan(width, height);
+        floorplan.initialize();
+        final CardinalDirection[] dirs = CardinalDirection.VALUES;
+        int rx = 0;
+        int ry = 0;
+        for (int i = 0; i < count; i++) {
+            final int event = events[i];
+            final int x = getX(event);
+            final int y = getY(event);
+            final int dir = getDir(event);
+            switch (getType(event)) {
+            case DELETE:
+                floorplan.deleteWallboard(x, y, dirs[dir]);
+                break;
+            case ADD:
+                floorplan.addWallboard(x, y, dirs[dir], true);
+                break;
+            case ADD_ONE_SIDED:
+                floorplan.addWallboard(x, y, dirs[dir], false);
+                break;
+            case MARK:
+                if (MARK_ROOM_CORNER == dir) {
+                    rx = x;
+                    ry = y;
+                } else if (MARK_ROOM_OPPOSITE_CORNER == dir)
+                    floorplan.markArea(rx, ry, x, y);
+                else
+                    floorplan.setExitPosition(x, y);
+                break;
+            case DOOR:
+                floorplan.deleteBorder(x, y, dirs[dir]);
+                break;
+            default:
+                throw new RuntimeException("GenerationTrace: unknown event type " + getType(event));
+            }
+        }
+        return floorplan;
+    }
+
+    /**
+     * Reconstructs a floorplan from a trace file.
+     * @param file the file written by save()
+     * @return a new floorplan
+     * @throws IOException if the file cannot be read or is not a trace
+     */
+    public static Floorplan replay(File file) throws IOException {
+        return load(file).replay();
+    }
+}
@@ -0,0 +1,59 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * A pass that adds loops to a maze by taking down wallboards at random.
+ * Each wallboard on the east and south side of a cell that is not part of a border
+ * is taken down with the given probability. As the maze is connected already,
+ * each removed wallboard creates a loop.
+ */
+
+public class LoopPass implements CellPass {
+    private final int threshold; // probability scaled to the range of non-negative integers
+    private Floorplan floorplan;
+    private RandomStream random;
+    private int removed;
+
+    /**
+     * Constructor
+     * @param probability that a wallboard is taken down, {@code 0 <= probability <= 1}
+     */
+    public LoopPass(double probability) {
+        threshold = (int)(Math.min(1.0, Math.max(0.0, probability)) * Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void begin(Floorplan floorplan, RandomStream random) {
+        this.floorplan = floorplan;
+        this.random = random;
+        removed = 0;
+    }
+
+    @Override
+    public void visit(int x, int y) {
+        // west and north wallboards are the east and south wallboards of earlier cells
+        tryToRemove(x, y, CardinalDirection.East);
+        tryToRemove(x, y, CardinalDirection.South);
+    }
+
+    @Override
+    public void end() {
+        floorplan = null;
+        random = null;
+    }
+
+    /**
+     * Gives the number of wallboards that were taken down by the last scan.
+     * @return number of loops added
+     */
+    public int getRemovedCount() {
+        return removed;
+    }
+
+    private void tryToRemove(int x, int y, CardinalDirection cd) {
+        if (floorplan.hasWall(x, y, cd) && !floorplan.isPartOfBorder(x, y, cd)
+                && (random.nextInt() >>> 1) < threshold) {
+            floorplan.deleteWallboard(x, y, cd);
+            removed++;
+        }
+    }
+}
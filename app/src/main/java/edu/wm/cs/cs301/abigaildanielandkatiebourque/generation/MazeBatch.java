@@ -0,0 +1,147 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * Generates many mazes of the same configuration in a row, e.g. for puzzle packs or tests.
+ *
+ * For small mazes, most of the time of an order goes into setting things up:
+ * a new builder, floorplan and distance matrix, a thread and the BSP tree.
+ * A batch creates a single builder with its floorplan and distance matrix and
+ * reuses them for each maze, on the calling thread. It only generates the layout of a maze
+ * and delivers it as an immutable CompactMaze. The BSP tree is built on demand
+ * with CompactMaze.toMaze().
+ *
+ * Each maze of a batch gets a random stream of its own that is split off
+ * the stream of the batch, so a batch with a seed always delivers the same sequence of mazes.
+ * A batch is meant to be used by a single thread, use several batches
+ * to generate mazes on several threads.
+ */
+
+public class MazeBatch {
+    private final int skill;
+    private final RandomStream random; // source of the random streams for single mazes
+    private final MazeBuilder builder; // reused for all mazes, keeps its floorplan and distance matrix
+
+    /**
+     * Constructor for a batch with an unpredictable sequence of mazes.
+     * @param algorithm builder algorithm for all mazes
+     * @param skill skill level, {@code 0 <= skill <= 15}
+     * @param perfect true for mazes without loops and rooms
+     */
+    public MazeBatch(Order.Builder algorithm, int skill, boolean perfect) {
+        this(algorithm, skill, perfect, new RandomStream());
+    }
+
+    /**
+     * Constructor for a batch with a sequence of mazes that is determined by the given seed.
+     * @param algorithm builder algorithm for all mazes
+     * @param skill skill level, {@code 0 <= skill <= 15}
+     * @param perfect true for mazes without loops and rooms
+     * @param seed seed of the batch
+     */
+    public MazeBatch(Order.Builder algorithm, int skill, boolean perfect, long seed) {
+        this(algorithm, skill, perfect, new RandomStream(seed));
+    }
+
+    private MazeBatch(Order.Builder algorithm, int skill, boolean perfect, RandomStream random) {
+        this.skill = skill;
+        this.random = random;
+        builder = MazeFactory.createBuilder(algorithm, false);
+        if (null == builder)
+            throw new RuntimeException("MazeBatch: missing implementation for requested algorithm: " + algorithm);
+        builder.buildOrder(new BatchOrder(algorithm, skill, perfect));
+        // progress is not reported, but the builder expects a reporter
+        builder.progress = new ProgressReporter(null, builder.width*builder.height, !perfect);
+    }
+
+    /**
+     * Generates the next maze of the batch.
+     * @return the layout of the maze
+     * @throws InterruptedException if the batch is cancelled
+     */
+    public CompactMaze next() throws InterruptedException {
+        builder.random = random.split();
+        builder.generateLayout();
+        final int colchange = builder.random.nextIntWithinInterval(0, 255);
+        return new CompactMaze(skill, builder.floorplan, builder.dists, builder.startx, builder.starty, colchange);
+    }
+
+    /**
+     * Generates the next n mazes of the batch.
+     * @param n number of mazes, {@code 0 <= n}
+     * @return array with n layouts in the order of generation
+     * @throws InterruptedException if the batch is cancelled
+     */
+    public CompactMaze[] next(int n) throws InterruptedException {
+        final CompactMaze[] result = new CompactMaze[n];
+        for (int i = 0; i < n; i++)
+            result[i] = next();
+        return result;
+    }
+
+    /**
+     * Registers a pass that runs over the cells of each maze of the batch
+     * after its pathways are generated, see CellPass.
+     * @param pass the pass
+     */
+    public void addCellPass(CellPass pass) {
+        builder.addCellPass(pass);
+    }
+
+    /**
+     * Sets the priority class of the batch, see BuildScheduler.
+     * A batch that runs alongside the app, e.g. for an export, should use BACKGROUND
+     * such that it waits while interactive orders are built.
+     * @param priority the priority class, INTERACTIVE by default
+     */
+    public void setPriority(BuildScheduler.Priority priority) {
+        builder.setPriority(priority);
+    }
+
+    /**
+     * Tells the batch to stop, the current and all later calls of next() throw an InterruptedException.
+     * Can be called from any thread.
+     */
+    public void cancel() {
+        builder.cancel();
+    }
+
+    /**
+     * The order that the builder of a batch works on, nothing is delivered through it.
+     */
+    private static class BatchOrder implements Order {
+        private final Builder algorithm;
+        private final int skill;
+        private final boolean perfect;
+
+        BatchOrder(Builder algorithm, int skill, boolean perfect) {
+            this.algorithm = algorithm;
+            this.skill = skill;
+            this.perfect = perfect;
+        }
+
+        @Override
+        public int getSkillLevel() {
+            return skill;
+        }
+
+        @Override
+        public Builder getBuilder() {
+            return algorithm;
+        }
+
+        @Override
+        public boolean isPerfect() {
+            return perfect;
+        }
+
+        @Override
+        public void deliver(Maze mazeConfig) {
+            // layouts are returned by next()
+        }
+
+        @Override
+        public void updateProgress(int percentage) {
+            // progress is not reported
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
 import edu.wm.cs.cs301.abigaildanielandkatiebourque.gui.Constants;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 
 /**
  * This class has the responsibility to create a maze of given dimensions (width, height)
@@ -31,29 +37,38 @@ public class MazeBuilder implements Runnable {
     // the distance to exit for a cell at position (i,j) in the floor plan.
 
     // class internal local variables
-    protected SingleRandom random ; // random number stream, used to make randomized decisions, e.g for direction to go
+    protected RandomStream random ; // random number stream, used to make randomized decisions, e.g for direction to go
+    // each builder has a stream of its own, parallel tasks of a builder split the stream in a fixed order
     Order order; // describes what is wanted, e.g. a perfect maze or not
+    MazeCache cache; // optional, keeps delivered mazes of seeded orders for repeated orders
+    // set by the MazeFactory to cancel the order, checked by all stages of the generation
+    protected final CancellationToken token = new CancellationToken();
+    protected ProgressReporter progress; // tells the order how far the generation is, one per run
+    // passes that run over all cells after the pathways are in place, in order of registration
+    private final List<CellPass> cellPasses = new ArrayList<CellPass>();
+    // true once the maze of a progressive order has been delivered, it owns floorplan and distances from then on
+    private boolean delivered;
+    // set by run() or discard(), whichever comes first, such that floorplan and distances have a single owner
+    private final AtomicBoolean claimed = new AtomicBoolean(false);
 
     // constants
-    static final long SLEEP_INTERVAL = 100 ; //constant used for brief breaks to recognize interrupted signal, unit is millisecond
     static final int MAX_TRIES = 250 ; // room generation: max number of tries to find a random location for a room
     static final int MIN_ROOM_DIMENSION = 3; // room generation: min dimension
     static final int MAX_ROOM_DIMENSION = 8; // room generation: max dimension
+    static final int PROGRESS_INTERVAL = 4096; // cells between two progress updates in the loops of a stage, must be a power of 2
 
     /**
      * Constructor for a randomized maze generation
      */
     public MazeBuilder(){
-        random = SingleRandom.getRandom();
+        random = new RandomStream();
     }
 
     /**
      * Constructor with option to make maze generation deterministic or random
      */
     public MazeBuilder(boolean deterministic){
-        if (true == deterministic)
-            SingleRandom.setSeed(1);
-        random = SingleRandom.getRandom();
+        random = (true == deterministic) ? new RandomStream(1) : new RandomStream();
     }
 
     /**
@@ -62,17 +77,58 @@ public class MazeBuilder implements Runnable {
      */
     public void buildOrder(Order order) {
         this.order = order;
-        int skill = order.getSkillLevel() ;
-        // derive parameters
-        width = Constants.SKILL_X[skill];
-        height = Constants.SKILL_Y[skill];
-        // only algorithm without rooms guarantees a perfect maze
-        // rooms can result in loops, so for a perfect maze, set room number to 0
-        rooms = order.isPerfect() ? 0 : Constants.SKILL_ROOMS[skill];
-        expectedPartiters = Constants.SKILL_PARTCT[skill];
-        // instantiate data structures
-        floorplan = new Floorplan(width,height) ;
-        dists = new Distance(width,height) ;
+        claimed.set(false);
+        // an order with a seed determines the random decisions and thus the maze
+        if (order instanceof SeededOrder)
+            random = new RandomStream(((SeededOrder)order).getSeed());
+        if (order instanceof DimensionedOrder) {
+            // explicit parameters
+            final DimensionedOrder dim = (DimensionedOrder)order;
+            width = dim.getWidth();
+            height = dim.getHeight();
+            if (width < DimensionedOrder.MIN_DIMENSION || width > DimensionedOrder.MAX_DIMENSION
+                    || height < DimensionedOrder.MIN_DIMENSION || height > DimensionedOrder.MAX_DIMENSION)
+                throw new IllegalArgumentException("MazeBuilder: unsupported maze dimensions " + width + "x" + height);
+            rooms = order.isPerfect() ? 0 : Math.max(0, dim.getRoomCount());
+            expectedPartiters = estimatePartiters(width, height);
+        }
+        else {
+            int skill = order.getSkillLevel() ;
+            // derive parameters
+            width = Constants.SKILL_X[skill];
+            height = Constants.SKILL_Y[skill];
+            // only algorithm without rooms guarantees a perfect maze
+            // rooms can result in loops, so for a perfect maze, set room number to 0
+            rooms = order.isPerfect() ? 0 : Constants.SKILL_ROOMS[skill];
+            expectedPartiters = Constants.SKILL_PARTCT[skill];
+        }
+        // instantiate data structures, recycled from earlier orders of the same dimensions if possible
+        floorplan = GenerationArena.getArena().acquireFloorplan(width,height) ;
+        dists = GenerationArena.getArena().acquireDistance(width,height) ;
+        // a recycled floorplan may still carry the trace of an earlier order
+        floorplan.setTrace(GenerationTrace.enabled ? new GenerationTrace() : null);
+        if (order instanceof PostProcessedOrder)
+            cellPasses.addAll(((PostProcessedOrder)order).createCellPasses());
+    }
+
+    /**
+     * Estimates the number of partition iterations of the BSP tree generation
+     * for a maze of the given dimensions, in line with Constants.SKILL_PARTCT.
+     * @param width width of the maze
+     * @param height height of the maze
+     * @return expected number of iterations
+     */
+    static int estimatePartiters(int width, int height) {
+        return Math.max(Constants.SKILL_PARTCT[0], 5*width*height);
+    }
+
+    /**
+     * Registers a pass that runs over all cells after the pathways are generated
+     * and before distances are computed. Passes run in order of registration.
+     * @param pass the pass
+     */
+    public void addCellPass(CellPass pass) {
+        cellPasses.add(pass);
     }
 
     /**
@@ -80,39 +136,44 @@ public class MazeBuilder implements Runnable {
      * This method is called by the MazeFactory to generate a maze.
      */
     public void run() {
+        if (!claimed.compareAndSet(false, true))
+            return; // discarded, floorplan and distances are back in the arena
+        // an interactive build makes background builds wait at their next checkpoint
+        final boolean interactive = (BuildScheduler.Priority.INTERACTIVE == token.getPriority());
+        if (interactive)
+            BuildScheduler.getScheduler().beginInteractive();
         // try-catch block to recognize if thread is interrupted
         try {
-            // create an initial invalid maze where all wallboards and borders are up
-            floorplan.initialize();
-            // place rooms in maze as needed
-            if (rooms > 0)
-                generateRooms();
+            token.checkpoint(); // a background build does not start while an interactive build runs
+            progress = new ProgressReporter(order, width*height, rooms > 0);
+            // stage 1: floorplan with rooms and pathways, distances, start and exit position
+            generateLayout();
+            final GenerationTrace trace = floorplan.getTrace(); // floorplan is final, it is not traced any further
 
-            Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
-
-            // put pathways into the maze, determine its starting and end position and calculate distances
-            generate();
-
-            Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+            token.checkpoint() ; // test if order has been cancelled, i.e. notified to stop
 
+            // stage 2: BSP tree for the first person view
             final int colchange = random.nextIntWithinInterval(0, 255); // used in the constructor for Segments  class Seg
-            final BSPBuilder b = new BSPBuilder(order, dists, floorplan, width, height, colchange, expectedPartiters) ;
-            BSPNode root = b.generateBSPNodes(); // takes a long time, updates progressbar,
+            if (order instanceof ProgressiveOrder) {
+                generateProgressively(colchange);
+                saveTrace(trace);
+                reset();
+                return;
+            }
+            BSPNode root = generateBSP(colchange); // takes a long time, updates progressbar,
             // it also internally checks for cancel requests
             // and throws an interrupted exception if that happens
 
-            Thread.sleep(SLEEP_INTERVAL) ; // test if thread has been interrupted, i.e. notified to stop
+            token.check() ; // test if order has been cancelled, i.e. notified to stop
+            progress.finish();
 
             // communicate results back to Controller
-            Maze mazeConfig = new MazeContainer();
-            mazeConfig.setHeight(height);
-            mazeConfig.setWidth(width);
-            mazeConfig.setFloorplan(floorplan);
-            mazeConfig.setMazedists(dists);
-            mazeConfig.setRootnode(root);
-            mazeConfig.setStartingPosition(startx, starty);
+            Maze mazeConfig = createMaze(root);
+            if (null != cache && order instanceof SeededOrder)
+                cache.put((SeededOrder)order, mazeConfig);
             order.updateProgress(100); // Order interface promises to communicate 100% upon delivery
             order.deliver(mazeConfig);
+            saveTrace(trace);
             // reset order and other fields for safe repeated operation and garbage collection
             reset() ;
         }
@@ -122,9 +183,158 @@ public class MazeBuilder implements Runnable {
             // exception mechanism is basically used to exit method in a controlled way
             //
             dbg("Catching signal to stop") ;
+            // unless a progressive order got its maze, nothing was delivered, so floorplan and distances can be reused
+            if (!delivered) {
+                GenerationArena.getArena().release(floorplan);
+                GenerationArena.getArena().release(dists);
+            }
             // reset order and other fields for safe repeated operation and garbage collection
             reset();
         }
+        finally {
+            if (interactive)
+                BuildScheduler.getScheduler().endInteractive();
+        }
+    }
+
+    /**
+     * Saves the trace of a delivered floorplan if a trace directory is set.
+     * The maze is delivered already, so a trace that cannot be written is only reported.
+     * @param trace the trace of the floorplan, null if traces are not enabled
+     */
+    private void saveTrace(GenerationTrace trace) {
+        final File dir = GenerationTrace.directory;
+        if (null == trace || null == dir)
+            return;
+        try {
+            trace.saveTo(dir);
+        } catch (IOException e) {
+            dbg("Cannot save trace: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delivers the maze for a ProgressiveOrder with a tree that is quick to build,
+     * then builds the regular tree and swaps it in.
+     * @param colchange used in the constructor for Segments class Seg
+     */
+    private void generateProgressively(int colchange) throws InterruptedException {
+        final BSPBuilder b = new BSPBuilder(order, dists, floorplan, width, height, colchange, expectedPartiters, token) ;
+        b.setProgressReporter(progress);
+        // the floorplan must be final before the maze is handed over
+        final ArrayList<Wall> walls = b.prepareWalls();
+        final Maze mazeConfig = createMaze(b.generateFallbackNodes(walls));
+        token.check();
+        // the app must not hand floorplan and distances to the arena while the tree is built,
+        // releasing the maze cancels the build instead
+        final GenerationArena arena = GenerationArena.getArena();
+        arena.hold(mazeConfig, token);
+        try {
+            delivered = true;
+            order.deliver(mazeConfig);
+            // the maze is played while the regular tree is built
+            final BSPNode root = b.generateBSPNodes(walls);
+            token.check();
+            progress.finish();
+            mazeConfig.setRootnode(root);
+            // put into the cache while still on hold, such that the arena never takes it back
+            if (null != cache && order instanceof SeededOrder)
+                cache.put((SeededOrder)order, mazeConfig);
+        }
+        finally {
+            arena.unhold(mazeConfig);
+        }
+        order.updateProgress(100);
+        ((ProgressiveOrder)order).treeCompleted(mazeConfig);
+    }
+
+    /**
+     * Puts the results of the builder into a maze.
+     * @param root root node of the BSP tree
+     * @return the maze
+     */
+    private Maze createMaze(BSPNode root) {
+        Maze mazeConfig = new MazeContainer();
+        mazeConfig.setHeight(height);
+        mazeConfig.setWidth(width);
+        mazeConfig.setFloorplan(floorplan);
+        mazeConfig.setMazedists(dists);
+        mazeConfig.setRootnode(root);
+        mazeConfig.setStartingPosition(startx, starty);
+        return mazeConfig;
+    }
+
+    /**
+     * Generates the layout of the maze into the floorplan and distance matrix
+     * that were set up by buildOrder(). Both are reset first, so the same builder can generate
+     * several layouts in a row, as the MazeBatch does.
+     * Sets the starting position and the exit.
+     * Precondition: progress is not null
+     */
+    protected void generateLayout() throws InterruptedException {
+        // create an initial invalid maze where all wallboards and borders are up
+        floorplan.initialize();
+        // place rooms in maze as needed
+        if (rooms > 0) {
+            progress.startStage(ProgressReporter.Stage.ROOMS);
+            generateRooms();
+        }
+
+        token.checkpoint() ; // test if order has been cancelled, i.e. notified to stop
+
+        // put pathways into the maze, determine its starting and end position and calculate distances
+        generate();
+    }
+
+    /**
+     * Generates the BSP tree for the current layout.
+     * @param colchange used in the constructor for Segments class Seg
+     * @return root node of the BSP tree
+     */
+    protected BSPNode generateBSP(int colchange) throws InterruptedException {
+        final BSPBuilder b = new BSPBuilder(order, dists, floorplan, width, height, colchange, expectedPartiters, token) ;
+        b.setProgressReporter(progress);
+        return b.generateBSPNodes();
+    }
+
+    /**
+     * Gives floorplan and distances back to the arena if the builder never runs,
+     * e.g. if its order is refused by a full queue or cancelled while it waits.
+     * Does nothing if run() has started, run() takes care of them in that case.
+     * @return true if the arrays have been given back, false if run() has started
+     */
+    boolean discard() {
+        if (!claimed.compareAndSet(false, true))
+            return false;
+        GenerationArena.getArena().release(floorplan);
+        GenerationArena.getArena().release(dists);
+        reset();
+        return true;
+    }
+
+    /**
+     * Tells the builder to stop working on its order.
+     * All stages of the generation check for this at short intervals,
+     * the builder stops without delivering a maze.
+     */
+    public void cancel() {
+        token.cancel();
+    }
+
+    /**
+     * Sets the priority class of the build, see BuildScheduler.
+     * The default is INTERACTIVE. Must be called before the build starts.
+     * @param priority the priority class
+     */
+    public void setPriority(BuildScheduler.Priority priority) {
+        token.setPriority(priority);
+    }
+
+    /**
+     * @return the priority class of the build
+     */
+    public BuildScheduler.Priority getPriority() {
+        return token.getPriority();
     }
 
     /**
@@ -139,8 +349,11 @@ public class MazeBuilder implements Runnable {
         starty = 0 ;
         floorplan = null ;
         dists = null ;
+        progress = null ;
         // leave random number generator as is
         order = null ;
+        cellPasses.clear();
+        delivered = false;
     }
 
 
@@ -151,26 +364,40 @@ public class MazeBuilder implements Runnable {
      * In that case less rooms are produced.
      * @return generated number of rooms
      */
-    protected int generateRooms() {
+    protected int generateRooms() throws InterruptedException {
         // Rooms are randomly positioned such that it may be impossible to place the all rooms if the maze is too small
         // to prevent an infinite loop we limit the number of failed to MAX_TRIES == 250
+        // an attempt only fails if there is no space left for a room of the chosen size
+        roomIndex = new RoomIndex(floorplan);
+        noSpace = new boolean[MAX_ROOM_DIMENSION+1][MAX_ROOM_DIMENSION+1];
         int tries = 0 ;
         int result = 0 ;
         while (tries < MAX_TRIES && result <= rooms) {
+            token.check();
             if (placeRoom())
                 result++ ;
             else
                 tries++ ;
+            progress.setStageProgress(Math.max((double)result / (rooms+1), (double)tries / MAX_TRIES));
         }
+        roomIndex = null;
+        noSpace = null;
         return result ;
     }
+    // room generation: index of areas occupied by rooms, only used during generateRooms()
+    private RoomIndex roomIndex;
+    // room generation: noSpace[rw][rh] is true if no room of that size fits anymore
+    // rooms are only added, so once a size does not fit, it never fits again
+    private boolean[][] noSpace;
+    private final int[] roomPosition = new int[2];
 
 
     /**
      * Allocates space for a room of random dimensions in the maze.
-     * The position of the room is chosen randomly. The method is not sophisticated
-     * such that the attempt may fail even if the maze has ample space to accommodate
-     * a room of the chosen size.
+     * The position of the room is chosen randomly. If the random position is occupied,
+     * a position is chosen randomly among all free positions for a room of that size,
+     * such that the attempt only fails if the maze has no space left for it.
+     * Overlap checks take constant time with the help of a RoomIndex.
      * @return true if room is successfully placed, false otherwise
      */
     private boolean placeRoom() {
@@ -187,17 +414,29 @@ public class MazeBuilder implements Runnable {
         // proceed for a given width and height
         // obtain a random position (rx,ry) such that room is located on as a rectangle with (rx,ry) and (rxl,ryl) as corner points
         // upper bound is chosen such that width and height of room fits maze area.
-        final int rx = random.nextIntWithinInterval(1, width-rw-1);
-        final int ry = random.nextIntWithinInterval(1, height-rh-1);
+        if (noSpace[rw][rh])
+            return false;
+        int rx = random.nextIntWithinInterval(1, width-rw-1);
+        int ry = random.nextIntWithinInterval(1, height-rh-1);
+        // check if the area or its surrounding already belong to a room
+        // if this is the case, pick one of the free positions instead
+        if (roomIndex.overlaps(rx, ry, rx+rw-1, ry+rh-1)) {
+            final int free = roomIndex.countFreePositions(rw, rh);
+            if (0 == free) {
+                // return false for a failed attempt
+                noSpace[rw][rh] = true;
+                return false;
+            }
+            roomIndex.findFreePosition(rw, rh, random.nextIntWithinInterval(0, free-1), roomPosition);
+            rx = roomPosition[0];
+            ry = roomPosition[1];
+        }
         final int rxl = rx+rw-1;
         final int ryl = ry+rh-1;
-        // check all cells in this area if they already belong to a room
-        // if this is the case, return false for a failed attempt
-        if (floorplan.areaOverlapsWithRoom(rx, ry, rxl, ryl))
-            return false ;
         // since the area is available, mark it for this room and remove all wallboards
         // from this on it is clear that we can place the room on the maze
-        floorplan.markAreaAsRoom(rw, rh, rx, ry, rxl, ryl);
+        floorplan.markAreaAsRoom(rw, rh, rx, ry, rxl, ryl, random);
+        roomIndex.addRoom(rx, ry, rxl, ryl);
         return true;
     }
 
@@ -207,13 +446,17 @@ public class MazeBuilder implements Runnable {
      * This method generates a maze.
      * It computes distances, determines a start and exit position that are as far apart as possible.
      */
-    protected void generate() {
+    protected void generate() throws InterruptedException {
         // generate paths in cells such that there is one strongly connected component
         // i.e. between any two cells in the maze there is a path to get from one to the other
         // the search algorithms starts at some random point
+        progress.startStage(ProgressReporter.Stage.PATHWAYS);
         generatePathways();
+        runCellPasses();
 
-        final int[] remote = dists.computeDistances(floorplan) ;
+        token.checkpoint();
+        progress.startStage(ProgressReporter.Stage.DISTANCES);
+        final int[] remote = dists.computeDistances(floorplan, token, progress) ;
 
         // identify cell with the greatest distance
         final int[] pos = dists.getStartPosition();
@@ -224,57 +467,111 @@ public class MazeBuilder implements Runnable {
         floorplan.setExitPosition(remote[0], remote[1]);
     }
     /**
-     * This method generates pathways into the maze.
-     * Comments have been removed to make students
-     * recognize the difference between readable and unreadable code
-     * and what kind of comments are needed to understand code.
-     * A previous version is kept below and commented out which is
-     * even worse than this one.
+     * Runs all registered passes in a single scan over the cells, row by row.
+     * Each cell is visited by all passes before the scan moves on, so a pass sees
+     * the changes that earlier passes made to this and to all previous cells.
      */
-    protected void generatePathways() {
-        int x = random.nextIntWithinInterval(0, width-1);
-        int y = 0;
-        final int firstx = x;
-        final int firsty = y;
-
-        CardinalDirection[][] origcds = new CardinalDirection[width][height];
-        CardinalDirection cd = CardinalDirection.East;
-        CardinalDirection origcd = cd;
-
+    private void runCellPasses() throws InterruptedException {
+        final int n = cellPasses.size();
+        if (0 == n)
+            return;
+        final CellPass[] passes = cellPasses.toArray(new CellPass[n]);
+        for (CellPass pass : passes)
+            pass.begin(floorplan, random);
+        for (int y = 0; y < height; y++) {
+            token.check();
+            for (int x = 0; x < width; x++) {
+                for (int i = 0; i < n; i++)
+                    passes[i].visit(x, y);
+            }
+        }
+        for (CellPass pass : passes)
+            pass.end();
+    }
+    /**
+     * Passes the progress of generatePathways() on to the progress reporter.
+     * Builders call this from their main loop every PROGRESS_INTERVAL cells or once per row or area.
+     * @param done units of work that are done, e.g. cells, rows or areas
+     * @param total units of work for all pathways
+     */
+    protected void updatePathwayProgress(long done, long total) {
+        if (null != progress && total > 0)
+            progress.setStageProgress((double)done / total);
+    }
+    /**
+     * This method generates pathways into the maze with a randomized depth-first search.
+     * Starting from a random cell in the top row, it repeatedly moves to a randomly chosen
+     * neighbor that has not been visited yet and takes down the wallboard in between.
+     * If there is no such neighbor, it backtracks to the cell it came from.
+     * The search ends when it is back at the starting position with nowhere to go.
+     *
+     * The path back to the start is stored as a 2-bit direction per cell (the direction
+     * that led into the cell), which serves as the stack of the depth-first search.
+     * The original version is kept below as a comment for discussion in class.
+     */
+    protected void generatePathways() throws InterruptedException {
+        final int firstx = random.nextIntWithinInterval(0, width-1);
+        final int firsty = 0;
+        // 2 bits per cell: ordinal of the direction that led into the cell
+        final byte[] cameFrom = new byte[(width*height + 3) >> 2];
+
+        int x = firstx;
+        int y = firsty;
+        int visited = 1;
         floorplan.setCellAsVisited(x, y);
-        Wallboard wallboard = new Wallboard(x, y, cd);
         while (true) {
-            wallboard.setLocationDirection(x, y, cd);
-            if (!floorplan.canTearDown(wallboard)) {
-                cd = cd.rotateClockwise();
-                if (origcd == cd) {
-                    if (x == firstx && y == firsty)
-                        break;
-                    int[] dxy = origcds[x][y].getDirection();
-                    x -= dxy[0];
-                    y -= dxy[1];
-                    if (null == origcds[x][y]) {
-                        // Happens at starting position
-                        assert (x == firstx && y == firsty) : "catching null elsewhere than starting position" ;
-                        cd = cd.randomDirection() ;
-                    }
-                    else
-                        cd = origcds[x][y] ;
-                    cd = cd.rotateClockwise();
-                    origcd = cd;
-                }
-            } else {
-                floorplan.deleteWallboard(wallboard);
-                int[] dxy = cd.getDirection();
-                x += dxy[0];
-                y += dxy[1];
+            token.tick();
+            final int options = getUnvisitedNeighbors(x, y);
+            if (0 == options) {
+                // dead end, backtrack
+                if (x == firstx && y == firsty)
+                    break;
+                final int cell = y*width + x;
+                final CardinalDirection cd = CardinalDirection.VALUES[(cameFrom[cell >> 2] >> ((cell & 3) << 1)) & 3];
+                x -= cd.getDx();
+                y -= cd.getDy();
+            }
+            else {
+                // pick one of the unvisited neighbors with equal probability
+                final int dir = selectBit(options, random.nextIntWithinInterval(0, Integer.bitCount(options)-1));
+                final CardinalDirection cd = CardinalDirection.VALUES[dir];
+                floorplan.deleteWallboard(x, y, cd);
+                x += cd.getDx();
+                y += cd.getDy();
                 floorplan.setCellAsVisited(x, y);
-                origcds[x][y] = cd;
-                cd = cd.randomDirection();
-                origcd = cd;
+                final int cell = y*width + x;
+                cameFrom[cell >> 2] |= dir << ((cell & 3) << 1);
+                if ((++visited & (PROGRESS_INTERVAL-1)) == 0)
+                    updatePathwayProgress(visited, width*height);
             }
         }
     }
+
+    /**
+     * Gives the neighbors of (x,y) that can be reached by tearing down a wallboard
+     * as a bitmask where bit i stands for the direction with ordinal i.
+     * @return bitmask of unvisited neighbors, 0 if there is none
+     */
+    private int getUnvisitedNeighbors(int x, int y) {
+        int result = 0;
+        for (int i = 0; i < 4; i++) {
+            if (floorplan.canTearDown(x, y, CardinalDirection.VALUES[i]))
+                result |= 1 << i;
+        }
+        return result;
+    }
+
+    /**
+     * Gives the position of the n-th bit that is set in the given mask.
+     * @param mask bitmask with more than n bits set
+     * @param n counts set bits from the lowest one, starting at 0
+     * @return position of that bit
+     */
+    private static int selectBit(int mask, int n) {
+        for (int i = 0; i < n; i++)
+            mask &= mask - 1; // clear lowest set bit
+        return Integer.numberOfTrailingZeros(mask);
+    }
 	/* original, kept  for discussion in class !!!!
 	protected void generatePathways() {
 		int[][] origdirs = new int[width][height] ;
@@ -0,0 +1,259 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is built with a randomized version of Boruvka's algorithm.
+ * Every internal wallboard is an edge between two adjacent cells with a random weight
+ * and the pathways form the minimum spanning tree for these weights, the same tree that
+ * Kruskal's algorithm would find. Boruvka's algorithm works in rounds: each component
+ * picks its cheapest edge to another component, then all picked edges are added at once.
+ * The number of components at least halves in each round.
+ * Algorithm leaves wallboards in tact that carry the border flag such that
+ * rooms retain their outside walls.
+ *
+ * Both steps of a round run in parallel on the WorkerPool. The cheapest edge of a component
+ * is found with compare-and-set on a long value that holds the weight in its upper
+ * and the edge in its lower half, so ties are broken by the edge and the tree does not
+ * depend on the order in which threads see edges. Components are merged with a
+ * ConcurrentDisjointSet. Wallboards are deleted at the end by a single thread.
+ * Edges are encoded as in ComponentJoiner, 2*cell for east and 2*cell+1 for south.
+ */
+
+public class MazeBuilderBoruvka extends MazeBuilder implements Runnable {
+    // number of edges or cells that a single task handles
+    static final int CHUNK_SIZE = 4096;
+    // marks a component without a cheapest edge
+    private static final long NONE = Long.MAX_VALUE;
+
+    public MazeBuilderBoruvka() {
+        super();
+        System.out.println("MazeBuilderBoruvka uses Boruvka's algorithm to generate maze.");
+    }
+
+    public MazeBuilderBoruvka(boolean det) {
+        super(det);
+        System.out.println("MazeBuilderBoruvka uses Boruvka's algorithm to generate maze.");
+    }
+
+    /**
+     * This method generates pathways into the maze by using Boruvka's algorithm to generate a spanning tree for an undirected graph.
+     * The cells are the nodes of the graph, the internal wallboards that are not part of a border are the edges.
+     * Cells that are already connected, e.g. because they are inside the same room, start out in the same set.
+     */
+    @Override
+    protected void generatePathways() throws InterruptedException {
+        final ConcurrentDisjointSet sets = new ConcurrentDisjointSet(width*height);
+        mergeOpenCells(sets);
+        final int[] edges = getClosedEdges();
+        final int count = edges.length;
+        final int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        // each chunk keeps its live edges at its start, edges inside a component are dropped
+        final int[] live = new int[chunks];
+        final int[] weights = new int[count];
+        // step 1: random weights, streams are split off in the order of chunks
+        final List<Runnable> tasks = new ArrayList<Runnable>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            final int lo = c * CHUNK_SIZE;
+            final int hi = Math.min(count, lo + CHUNK_SIZE);
+            live[c] = hi - lo;
+            final RandomStream chunkRandom = random.split();
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = lo; i < hi; i++)
+                        weights[i] = chunkRandom.nextInt() >>> 1;
+                }
+            });
+        }
+        WorkerPool.runAll(tasks);
+        // step 2: Boruvka rounds till no component has an edge to another component
+        final AtomicLongArray cheapest = new AtomicLongArray(width*height);
+        for (int i = 0; i < width*height; i++)
+            cheapest.set(i, NONE);
+        final byte[] inTree = new byte[2*width*height]; // 1 for edges of the spanning tree, indexed by edge
+        int merged = 0; // each edge of the spanning tree merges two components
+        while (true) {
+            token.check();
+            findCheapestEdges(sets, edges, weights, live, cheapest);
+            token.check();
+            final int added = mergeComponents(sets, cheapest, inTree);
+            if (0 == added)
+                break;
+            merged += added;
+            updatePathwayProgress(merged, width*height - 1);
+        }
+        // step 3: delete wallboards, row by row
+        deleteWallboards(inTree);
+    }
+
+    /**
+     * Merges all adjacent cells that are not separated by a wallboard.
+     */
+    private void mergeOpenCells(ConcurrentDisjointSet sets) {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int cell = y*width + x;
+                if (x < width-1 && floorplan.hasNoWall(x, y, CardinalDirection.East))
+                    sets.union(cell, cell+1);
+                if (y < height-1 && floorplan.hasNoWall(x, y, CardinalDirection.South))
+                    sets.union(cell, cell+width);
+            }
+        }
+    }
+
+    /**
+     * Gives all internal wallboards that are present and not marked as a border.
+     * @return array of encoded edges, exactly filled to its length
+     */
+    private int[] getClosedEdges() {
+        final int[] edges = GenerationArena.getArena().acquireInts(2*width*height);
+        int count = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x0 = 0; x0 < width; x0 += 64) {
+                // outside borders are never tearable, so there is no need to check for the last column or row
+                long east = floorplan.getTearableWallboards(x0, y, CardinalDirection.East);
+                long south = floorplan.getTearableWallboards(x0, y, CardinalDirection.South);
+                while ((east | south) != 0) {
+                    final int i = Long.numberOfTrailingZeros(east | south);
+                    final int cell = y*width + x0 + i;
+                    if ((east & (1L << i)) != 0)
+                        edges[count++] = 2*cell;
+                    if ((south & (1L << i)) != 0)
+                        edges[count++] = 2*cell+1;
+                    east &= ~(1L << i);
+                    south &= ~(1L << i);
+                }
+            }
+        }
+        final int[] result = new int[count];
+        System.arraycopy(edges, 0, result, 0, count);
+        GenerationArena.getArena().releaseInts(edges);
+        return result;
+    }
+
+    /**
+     * Records the cheapest edge of each component to another component
+     * at the representative of the component. Edges that connect cells of the same
+     * component are dropped from their chunk.
+     */
+    private void findCheapestEdges(final ConcurrentDisjointSet sets, final int[] edges, final int[] weights,
+            final int[] live, final AtomicLongArray cheapest) throws InterruptedException {
+        final List<Runnable> tasks = new ArrayList<Runnable>(live.length);
+        for (int c = 0; c < live.length; c++) {
+            final int chunk = c;
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    if (token.isCancelled())
+                        return;
+                    final int lo = chunk * CHUNK_SIZE;
+                    int hi = lo + live[chunk];
+                    int i = lo;
+                    while (i < hi) {
+                        final int edge = edges[i];
+                        final int a = sets.find(edge >> 1);
+                        final int b = sets.find(getNeighbor(edge));
+                        if (a == b) {
+                            // drop edge by moving the last live edge of the chunk into its place
+                            hi--;
+                            edges[i] = edges[hi];
+                            weights[i] = weights[hi];
+                            edges[hi] = edge;
+                            continue;
+                        }
+                        final long key = ((long)weights[i] << 32) | edge;
+                        setIfLess(cheapest, a, key);
+                        setIfLess(cheapest, b, key);
+                        i++;
+                    }
+                    live[chunk] = hi - lo;
+                }
+            });
+        }
+        WorkerPool.runAll(tasks);
+    }
+
+    /**
+     * Adds the cheapest edge of each component to the spanning tree and resets
+     * the cheapest edges for the next round.
+     * @return the number of edges added to the tree
+     */
+    private int mergeComponents(final ConcurrentDisjointSet sets, final AtomicLongArray cheapest, final byte[] inTree)
+            throws InterruptedException {
+        final int cells = width*height;
+        final int chunks = (cells + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        final int[] added = new int[chunks];
+        final List<Runnable> tasks = new ArrayList<Runnable>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            final int chunk = c;
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    final int hi = Math.min(cells, (chunk+1) * CHUNK_SIZE);
+                    for (int cell = chunk * CHUNK_SIZE; cell < hi; cell++) {
+                        final long key = cheapest.get(cell);
+                        if (NONE == key)
+                            continue;
+                        cheapest.set(cell, NONE);
+                        final int edge = (int)key;
+                        // two components may pick the same edge, only one of them merges
+                        if (sets.union(edge >> 1, getNeighbor(edge))) {
+                            inTree[edge] = 1;
+                            added[chunk]++;
+                        }
+                    }
+                }
+            });
+        }
+        WorkerPool.runAll(tasks);
+        int result = 0;
+        for (int c = 0; c < chunks; c++)
+            result += added[c];
+        return result;
+    }
+
+    /**
+     * Deletes the wallboards of all edges in the spanning tree.
+     */
+    private void deleteWallboards(byte[] inTree) throws InterruptedException {
+        for (int y = 0; y < height; y++) {
+            token.check();
+            for (int x0 = 0; x0 < width; x0 += 64) {
+                long east = 0;
+                long south = 0;
+                final int n = Math.min(64, width - x0);
+                for (int i = 0; i < n; i++) {
+                    final int edge = 2*(y*width + x0 + i);
+                    east |= (long)inTree[edge] << i;
+                    south |= (long)inTree[edge+1] << i;
+                }
+                floorplan.deleteWallboards(x0, y, CardinalDirection.East, east);
+                floorplan.deleteWallboards(x0, y, CardinalDirection.South, south);
+            }
+        }
+    }
+
+    /**
+     * @return the cell on the other side of the given edge
+     */
+    private int getNeighbor(int edge) {
+        return ((edge & 1) != 0) ? (edge >> 1) + width : (edge >> 1) + 1;
+    }
+
+    /**
+     * Sets the value at index i to the given key if that is less than the current value.
+     */
+    private static void setIfLess(AtomicLongArray a, int i, long key) {
+        long current = a.get(i);
+        while (key < current && !a.compareAndSet(i, current, key))
+            current = a.get(i);
+    }
+}
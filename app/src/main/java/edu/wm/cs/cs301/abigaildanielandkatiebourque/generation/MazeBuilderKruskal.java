@@ -0,0 +1,44 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is built with a randomized version of Kruskal's algorithm.
+ * Every internal wallboard is an edge between two adjacent cells. Edges are
+ * considered in random order and a wallboard is taken down if the cells on both
+ * sides are not connected yet. A disjoint-set structure keeps track of which
+ * cells are connected, see the ComponentJoiner class.
+ * Algorithm leaves wallboards in tact that carry the border flag such that
+ * rooms retain their outside walls.
+ *
+ * Edges are encoded as integers and kept in a primitive array,
+ * no wallboard objects are created per edge.
+ */
+
+public class MazeBuilderKruskal extends MazeBuilder implements Runnable {
+
+    public MazeBuilderKruskal() {
+        super();
+        System.out.println("MazeBuilderKruskal uses Kruskal's algorithm to generate maze.");
+    }
+
+    public MazeBuilderKruskal(boolean det) {
+        super(det);
+        System.out.println("MazeBuilderKruskal uses Kruskal's algorithm to generate maze.");
+    }
+
+    /**
+     * This method generates pathways into the maze by using Kruskal's algorithm to generate a spanning tree for an undirected graph.
+     * The cells are the nodes of the graph, the internal wallboards that are not part of a border are the edges.
+     * Cells that are already connected, e.g. because they are inside the same room, start out in the same set.
+     */
+    @Override
+    protected void generatePathways() throws InterruptedException {
+        final ComponentJoiner joiner = new ComponentJoiner(floorplan, 0, 0, width, height);
+        joiner.setProgressReporter(progress);
+        joiner.join(joiner.getClosedEdges(), random, token);
+    }
+}
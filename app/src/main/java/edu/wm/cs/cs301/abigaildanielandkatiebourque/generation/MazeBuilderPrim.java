@@ -1,7 +1,5 @@
 package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
 
-import java.util.ArrayList;
-
 /**
  * This class has the responsibility to create a maze of given dimensions (width, height)
  * together with a solution based on a distance matrix.
@@ -15,10 +13,20 @@ import java.util.ArrayList;
  * Borders are used to keep the outside surrounding of the maze enclosed and
  * to make sure that rooms retain outside walls and do not end up as open stalls.
  *
+ * The set of candidate wallboards (the frontier) is kept in a packed integer array
+ * where each entry encodes a cell and a direction. A random candidate is extracted
+ * in constant time by moving the last entry into its place. A bitset over all
+ * wallboards makes sure that each wallboard enters the frontier at most once.
+ *
  * @author Jones.Andrew, refactored by Peter Kemper
  */
 
 public class MazeBuilderPrim extends MazeBuilder implements Runnable {
+
+    private int[] candidates; // frontier, entry is 4*(y*width+x) + ordinal of direction
+    private int size;         // number of entries in use in candidates
+    private long[] added;     // bitset over wallboards, bit is set once a wallboard entered the frontier
+
     public MazeBuilderPrim() {
         super();
         System.out.println("MazeBuilderPrim uses Prim's algorithm to generate maze.");
@@ -35,61 +43,101 @@ public class MazeBuilderPrim extends MazeBuilder implements Runnable {
      * So an edge implies that its nodes are adjacent cells in the maze and that there is no wallboard separating these cells in the maze.
      */
     @Override
-    protected void generatePathways() {
+    protected void generatePathways() throws InterruptedException {
+        // each wallboard is added at most once, there are at most 2 internal wallboards per cell
+        candidates = new int[2*width*height];
+        added = new long[(2*width*height + 63) >> 6];
+        size = 0;
         // pick initial position (x,y) at some random position on the maze
         int x = random.nextIntWithinInterval(0, width-1);
         int y = random.nextIntWithinInterval(0, height-1);
+        int visited = 1;
+        floorplan.setCellAsVisited(x, y);
         // create an initial list of all wallboards that could be removed
         // those wallboards lead to adjacent cells that are not part of the spanning tree yet.
-        final ArrayList<Wallboard> candidates = new ArrayList<Wallboard>();
-        updateListOfWallboards(x, y, candidates);
+        updateListOfWallboards(x, y);
 
-        Wallboard curWallboard;
         // we need to consider each candidate wallboard and consider it only once
-        while(!candidates.isEmpty()){
+        while (size > 0) {
+            token.tick();
             // in order to have a randomized algorithm,
             // we randomly select and extract a wallboard from our candidate set
             // this also reduces the set to make sure we terminate the loop
-            curWallboard = extractWallboardFromCandidateSetRandomly(candidates);
+            final int candidate = extractWallboardFromCandidateSetRandomly();
+            final int cell = candidate >> 2;
+            final CardinalDirection cd = CardinalDirection.VALUES[candidate & 3];
+            x = cell % width;
+            y = cell / width;
             // check if wallboard leads to a new cell that is not connected to the spanning tree yet
-            if (floorplan.canTearDown(curWallboard))
+            if (floorplan.canTearDown(x, y, cd))
             {
                 // delete wallboard from maze, note that this takes place from both directions
-                floorplan.deleteWallboard(curWallboard);
+                floorplan.deleteWallboard(x, y, cd);
                 // update current position
-                x = curWallboard.getNeighborX();
-                y = curWallboard.getNeighborY();
+                x += cd.getDx();
+                y += cd.getDy();
 
                 floorplan.setCellAsVisited(x, y); // the flag is never reset, so this ensure we never go to (x,y) again
-                updateListOfWallboards(x, y, candidates); // checks to see if it has wallboards to new cells, if it does it adds them to the list
-                // note that each wallboard can get added at most once. This is important for termination and efficiency
+                updateListOfWallboards(x, y); // checks to see if it has wallboards to new cells, if it does it adds them to the list
+                if ((++visited & (PROGRESS_INTERVAL-1)) == 0)
+                    updatePathwayProgress(visited, width*height);
             }
         }
+        // release working memory
+        candidates = null;
+        added = null;
     }
     /**
-     * Pick a random position in the list of candidates, remove the candidate from the list and return it
-     * @param candidates
+     * Pick a random position in the list of candidates, remove the candidate from the list and return it.
+     * The last candidate takes its place such that the operation runs in constant time.
      * @return candidate from the list, randomly chosen
      */
-    private Wallboard extractWallboardFromCandidateSetRandomly(final ArrayList<Wallboard> candidates) {
-        return candidates.remove(random.nextIntWithinInterval(0, candidates.size()-1));
+    private int extractWallboardFromCandidateSetRandomly() {
+        final int i = random.nextIntWithinInterval(0, size-1);
+        final int result = candidates[i];
+        candidates[i] = candidates[--size];
+        return result;
     }
 
 
     /**
-     * Updates a list of all wallboards that could be removed from the maze based on wallboards towards new cells
+     * Updates the list of all wallboards that could be removed from the maze based on wallboards towards new cells
      * @param x
      * @param y
      */
-    private void updateListOfWallboards(int x, int y, ArrayList<Wallboard> wallboards) {
-        Wallboard wallboard = new Wallboard(x, y, CardinalDirection.East) ;
-        for (CardinalDirection cd : CardinalDirection.values()) {
-            wallboard.setLocationDirection(x, y, cd);
-            if (floorplan.canTearDown(wallboard)) //
+    private void updateListOfWallboards(int x, int y) {
+        final int cell = y*width + x;
+        for (CardinalDirection cd : CardinalDirection.VALUES) {
+            if (floorplan.canTearDown(x, y, cd))
             {
-                wallboards.add(new Wallboard(x, y, cd));
+                // each wallboard can get added at most once. This is important for termination and efficiency
+                final int wallboard = getWallboardIndex(cell, cd);
+                final long mask = 1L << (wallboard & 63);
+                if ((added[wallboard >> 6] & mask) == 0) {
+                    added[wallboard >> 6] |= mask;
+                    candidates[size++] = 4*cell + cd.ordinal();
+                }
             }
         }
     }
 
+    /**
+     * Gives a unique index for the wallboard of a cell in the given direction.
+     * The wallboard between two adjacent cells has the same index for both cells.
+     * @param cell index of cell, y*width+x, and the neighbor in direction cd must exist
+     * @param cd direction of wallboard
+     * @return index in range {@code 0 <= index < 2*width*height}
+     */
+    private int getWallboardIndex(int cell, CardinalDirection cd) {
+        switch (cd) {
+            case East:
+                return 2*cell;
+            case South:
+                return 2*cell+1;
+            case West:
+                return 2*(cell-1);
+            default: // North
+                return 2*(cell-width)+1;
+        }
+    }
 }
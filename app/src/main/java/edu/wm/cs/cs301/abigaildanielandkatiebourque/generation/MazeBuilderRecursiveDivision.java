@@ -0,0 +1,165 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is built with the recursive division algorithm. Other algorithms
+ * take down wallboards, this one starts from a maze without any internal wallboards
+ * and adds them. An area is divided into two parts by a horizontal or vertical wall
+ * with a single gap, then both parts are divided the same way till they are corridors
+ * of width 1. Without rooms, the result is a perfect maze.
+ * Wallboards that carry the border flag, e.g. those of rooms, stay in place and
+ * no wallboards are added inside or next to a room. As this may cut off parts of the maze,
+ * any remaining components are joined afterwards.
+ *
+ * The two parts of a divided area are independent of each other. The builder divides the maze
+ * on its own thread till areas are small enough, then the areas are divided in parallel
+ * on the WorkerPool, each with a random stream of its own.
+ */
+
+public class MazeBuilderRecursiveDivision extends MazeBuilder implements Runnable {
+    // areas with at most this many cells are divided by a single task
+    static final int PARALLEL_AREA = 64*64;
+
+    // true if a room prevented a wallboard or gap from being placed, set by any task
+    private volatile boolean blockedByRoom;
+
+    public MazeBuilderRecursiveDivision() {
+        super();
+        System.out.println("MazeBuilderRecursiveDivision uses recursive division to generate maze.");
+    }
+
+    public MazeBuilderRecursiveDivision(boolean det) {
+        super(det);
+        System.out.println("MazeBuilderRecursiveDivision uses recursive division to generate maze.");
+    }
+
+    /**
+     * This method generates pathways into the maze by taking down all internal wallboards
+     * and then dividing the maze recursively.
+     */
+    @Override
+    protected void generatePathways() throws InterruptedException {
+        blockedByRoom = false;
+        openInterior();
+        // step 1: divide on this thread till areas are small enough for a task
+        // areas are kept as {x, y, width, height}
+        final List<int[]> areas = new ArrayList<int[]>();
+        final ArrayDeque<int[]> pending = new ArrayDeque<int[]>();
+        pending.push(new int[] {0, 0, width, height});
+        while (!pending.isEmpty()) {
+            final int[] a = pending.pop();
+            if (a[2]*a[3] <= PARALLEL_AREA || a[2] < 2 || a[3] < 2) {
+                areas.add(a);
+                continue;
+            }
+            final int[][] parts = divideOnce(a[0], a[1], a[2], a[3], random);
+            pending.push(parts[1]);
+            pending.push(parts[0]);
+        }
+        // step 2: divide areas in parallel, random streams are split off in the order of areas
+        final List<Runnable> tasks = new ArrayList<Runnable>(areas.size());
+        final AtomicLong cellsDone = new AtomicLong(0);
+        for (final int[] a : areas) {
+            final RandomStream areaRandom = random.split();
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        divide(a[0], a[1], a[2], a[3], areaRandom);
+                        updatePathwayProgress(cellsDone.addAndGet(a[2]*a[3]), (long)width*height);
+                    } catch (InterruptedException e) {
+                        // order is cancelled, the builder notices after all tasks are done
+                    }
+                }
+            });
+        }
+        WorkerPool.runAll(tasks);
+        token.check();
+        // step 3: rooms may have cut off parts of the maze, connect what is left
+        if (blockedByRoom) {
+            final ComponentJoiner joiner = new ComponentJoiner(floorplan, 0, 0, width, height);
+            if (joiner.getComponentCount() > 1)
+                joiner.join(joiner.getClosedEdges(), random, token);
+        }
+    }
+
+    /**
+     * Takes down all internal wallboards that are not part of a border.
+     */
+    private void openInterior() throws InterruptedException {
+        for (int y = 0; y < height; y++) {
+            token.check();
+            for (int x = 0; x < width; x++) {
+                if (x < width-1 && floorplan.canTearDown(x, y, CardinalDirection.East))
+                    floorplan.deleteWallboard(x, y, CardinalDirection.East);
+                if (y < height-1 && floorplan.canTearDown(x, y, CardinalDirection.South))
+                    floorplan.deleteWallboard(x, y, CardinalDirection.South);
+            }
+        }
+    }
+
+    /**
+     * Divides the given area recursively till all parts are corridors of width 1.
+     * Recursion goes into the smaller part, the larger part is divided in the loop,
+     * which limits the depth of the recursion.
+     */
+    private void divide(int x, int y, int w, int h, RandomStream r) throws InterruptedException {
+        while (w >= 2 && h >= 2) {
+            final int[][] parts = divideOnce(x, y, w, h, r);
+            final int[] small = (parts[0][2]*parts[0][3] <= parts[1][2]*parts[1][3]) ? parts[0] : parts[1];
+            final int[] large = (small == parts[0]) ? parts[1] : parts[0];
+            divide(small[0], small[1], small[2], small[3], r);
+            x = large[0];
+            y = large[1];
+            w = large[2];
+            h = large[3];
+        }
+    }
+
+    /**
+     * Adds a wall with a single gap that divides the given area into two parts.
+     * The wall runs across the shorter side of the area.
+     * Precondition: {@code w >= 2 && h >= 2}
+     * @return the two parts as {x, y, width, height}
+     */
+    private int[][] divideOnce(int x, int y, int w, int h, RandomStream r) throws InterruptedException {
+        final boolean horizontal = (h > w) || (h == w && r.nextBoolean());
+        if (horizontal) {
+            // wall between rows wy and wy+1
+            final int wy = y + r.nextIntWithinInterval(0, h-2);
+            final int gap = x + r.nextIntWithinInterval(0, w-1);
+            for (int cx = x; cx < x+w; cx++)
+                addWallboard(cx, wy, CardinalDirection.South, cx == gap);
+            return new int[][] { {x, y, w, wy-y+1}, {x, wy+1, w, y+h-wy-1} };
+        }
+        // wall between columns wx and wx+1
+        final int wx = x + r.nextIntWithinInterval(0, w-2);
+        final int gap = y + r.nextIntWithinInterval(0, h-1);
+        for (int cy = y; cy < y+h; cy++)
+            addWallboard(wx, cy, CardinalDirection.East, cy == gap);
+        return new int[][] { {x, y, wx-x+1, h}, {wx+1, y, x+w-wx-1, h} };
+    }
+
+    /**
+     * Adds the wallboard between (x,y) and its neighbor in the given direction
+     * unless it is the gap or a room is on either side.
+     */
+    private void addWallboard(int x, int y, CardinalDirection cd, boolean isGap) throws InterruptedException {
+        token.tick();
+        if (floorplan.isInRoom(x, y) || floorplan.isInRoom(x+cd.getDx(), y+cd.getDy())) {
+            blockedByRoom = true;
+            return;
+        }
+        if (!isGap)
+            floorplan.addWallboard(x, y, cd, true);
+    }
+}
@@ -0,0 +1,183 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * The maze is built with the Sidewinder algorithm. The top row is a single corridor.
+ * Each other row is cut into runs of cells that are connected to the east,
+ * and each run gets a single opening to the north at a random cell of the run.
+ * Without rooms, the result is a perfect maze.
+ *
+ * A row only depends on its own random numbers, so the builder works on whole rows
+ * with 64 cells per long value: a random long decides the east wallboards of 64 cells at once,
+ * masked by the wallboards that can be taken down, and its zero bits mark the ends of runs.
+ * Wallboards are deleted with the row methods of the Floorplan, which take a bit mask.
+ * Bands of rows are processed in parallel on the WorkerPool, each row with a random stream of its own.
+ * Rooms or other borders may leave a run without an opening, any remaining components
+ * are joined afterwards.
+ */
+
+public class MazeBuilderSidewinder extends MazeBuilder implements Runnable {
+    // number of bands per worker thread, more bands balance the load better
+    static final int BANDS_PER_THREAD = 4;
+
+    // true if a border prevented a row from being connected, set by any task
+    private volatile boolean blocked;
+
+    public MazeBuilderSidewinder() {
+        super();
+        System.out.println("MazeBuilderSidewinder uses the Sidewinder algorithm to generate maze.");
+    }
+
+    public MazeBuilderSidewinder(boolean det) {
+        super(det);
+        System.out.println("MazeBuilderSidewinder uses the Sidewinder algorithm to generate maze.");
+    }
+
+    /**
+     * This method generates pathways into the maze row by row.
+     * Each task carves a band of rows. A row opens north into the row above,
+     * which is part of the same band except for the first row of a band.
+     * Openings of first rows are deleted once all tasks are done such that
+     * no two tasks ever write to the same cell.
+     */
+    @Override
+    protected void generatePathways() throws InterruptedException {
+        blocked = false;
+        final int words = (width + 63) / 64;
+        // openings to the north, one bit per cell
+        final long[][] north = new long[height][words];
+        // random streams are split off in the order of rows, independent of the number of bands
+        final RandomStream[] rowRandom = new RandomStream[height];
+        for (int y = 0; y < height; y++)
+            rowRandom[y] = random.split();
+        final int bands = Math.min(height, WorkerPool.getParallelism() * BANDS_PER_THREAD);
+        final List<Runnable> tasks = new ArrayList<Runnable>(bands);
+        final AtomicInteger rowsDone = new AtomicInteger(0);
+        for (int b = 0; b < bands; b++) {
+            final int first = (int)((long)height * b / bands);
+            final int last = (int)((long)height * (b+1) / bands);
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    final long[] candidates = new long[words];
+                    try {
+                        for (int y = first; y < last; y++) {
+                            token.check();
+                            carveRow(y, rowRandom[y], candidates, north[y]);
+                            if (y > first)
+                                deleteNorth(y, north[y]);
+                            updatePathwayProgress(rowsDone.incrementAndGet(), height);
+                        }
+                    } catch (InterruptedException e) {
+                        // order is cancelled, the builder notices after all tasks are done
+                    }
+                }
+            });
+        }
+        WorkerPool.runAll(tasks);
+        token.check();
+        for (int b = 1; b < bands; b++) {
+            final int first = (int)((long)height * b / bands);
+            deleteNorth(first, north[first]);
+        }
+        // borders may have cut off parts of the maze, connect what is left
+        if (blocked) {
+            final ComponentJoiner joiner = new ComponentJoiner(floorplan, 0, 0, width, height);
+            if (joiner.getComponentCount() > 1)
+                joiner.join(joiner.getClosedEdges(), random, token);
+        }
+    }
+
+    /**
+     * Deletes the east wallboards of row y and decides on the openings to the north.
+     * @param y row
+     * @param r random stream of the row
+     * @param candidates holds the north wallboards that can be taken down, one bit per cell, content is overwritten
+     * @param north receives the openings to the north, one bit per cell
+     */
+    private void carveRow(int y, RandomStream r, long[] candidates, long[] north) {
+        if (y > 0) {
+            for (int w = 0; w < north.length; w++)
+                candidates[w] = floorplan.getTearableWallboards(w * 64, y, CardinalDirection.North);
+        }
+        int start = 0; // first cell of the current run
+        for (int w = 0; w < north.length; w++) {
+            final int x0 = w * 64;
+            final int n = Math.min(64, width - x0);
+            final long valid = (n == 64) ? -1L : (1L << n) - 1;
+            final long tearable = floorplan.getTearableWallboards(x0, y, CardinalDirection.East);
+            if (y == 0) {
+                // top row is a single corridor, the last cell has the outside border to the east
+                final long inner = (x0 + n == width) ? valid >>> 1 : valid;
+                if (tearable != inner)
+                    blocked = true;
+                floorplan.deleteWallboards(x0, y, CardinalDirection.East, tearable);
+                continue;
+            }
+            final long east = r.nextLong() & tearable;
+            floorplan.deleteWallboards(x0, y, CardinalDirection.East, east);
+            // a run ends at every cell without an opening to the east
+            long ends = ~east & valid;
+            while (ends != 0) {
+                final int end = x0 + Long.numberOfTrailingZeros(ends);
+                ends &= ends - 1; // clear lowest set bit
+                final int x = selectInRun(candidates, start, end, r);
+                if (x < 0)
+                    blocked = true;
+                else
+                    north[x >> 6] |= 1L << (x & 63);
+                start = end + 1;
+            }
+        }
+    }
+
+    /**
+     * Picks a random cell of the run from start to end that can be opened to the north.
+     * @return x coordinate of the cell, -1 if there is none
+     */
+    private static int selectInRun(long[] candidates, int start, int end, RandomStream r) {
+        int count = 0;
+        for (int w = start >> 6; w <= end >> 6; w++)
+            count += Long.bitCount(candidates[w] & rangeMask(w, start, end));
+        if (0 == count)
+            return -1;
+        int k = r.nextIntWithinInterval(0, count-1);
+        for (int w = start >> 6; ; w++) {
+            long m = candidates[w] & rangeMask(w, start, end);
+            final int c = Long.bitCount(m);
+            if (k < c) {
+                for (int i = 0; i < k; i++)
+                    m &= m - 1; // clear lowest set bit
+                return w * 64 + Long.numberOfTrailingZeros(m);
+            }
+            k -= c;
+        }
+    }
+
+    /**
+     * Gives the bits of word w that belong to cells from start to end.
+     */
+    private static long rangeMask(int w, int start, int end) {
+        final int lo = Math.max(start - w * 64, 0);
+        final int hi = Math.min(end - w * 64, 63);
+        return (-1L << lo) & (-1L >>> (63 - hi));
+    }
+
+    /**
+     * Deletes the north wallboards of row y, this also touches the row above.
+     */
+    private void deleteNorth(int y, long[] north) {
+        for (int w = 0; w < north.length; w++) {
+            if (north[w] != 0)
+                floorplan.deleteWallboards(w * 64, y, CardinalDirection.North, north[w]);
+        }
+    }
+}
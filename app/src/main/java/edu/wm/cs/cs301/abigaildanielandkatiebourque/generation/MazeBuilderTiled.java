@@ -0,0 +1,82 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class has the responsibility to create a maze of given dimensions (width, height)
+ * together with a solution based on a distance matrix.
+ * The MazeBuilder implements Runnable such that it can be run a separate thread.
+ * The MazeFactory has a MazeBuilder and handles the thread management.
+ *
+ * MazeBuilderTiled generates pathways in parallel. The floorplan is split into
+ * rectangular tiles of fixed size. Each tile is carved as a spanning tree with
+ * Kruskal's algorithm on a thread of the WorkerPool. As tiles are disjoint,
+ * the workers never touch the same cell.
+ * Afterwards the tiles are stitched together by taking down just enough
+ * wallboards on the seams between tiles to connect all of them, such that
+ * the resulting maze is perfect (if there are no rooms).
+ *
+ * The tile size is fixed and does not depend on the number of processors
+ * such that the layout of tiles is the same on every device.
+ * Together with a random stream per tile, the maze for a given seed is the same
+ * no matter how many threads carve tiles.
+ */
+
+public class MazeBuilderTiled extends MazeBuilder implements Runnable {
+    // dimension of a tile, chosen such that the default skill levels up to 9
+    // fit into a few tiles and the largest maze results in a few dozen tasks
+    static final int TILE_SIZE = 32;
+
+    public MazeBuilderTiled() {
+        super();
+        System.out.println("MazeBuilderTiled uses parallel tiles to generate maze.");
+    }
+
+    public MazeBuilderTiled(boolean det) {
+        super(det);
+        System.out.println("MazeBuilderTiled uses parallel tiles to generate maze.");
+    }
+
+    /**
+     * This method generates pathways into the maze by carving each tile as
+     * a spanning tree in parallel and then joining the tiles along their seams.
+     */
+    @Override
+    protected void generatePathways() throws InterruptedException {
+        // step 1: carve tiles in parallel
+        // each tile gets its own random stream, split off in row major order of tiles
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        final int tiles = ((width + TILE_SIZE - 1) / TILE_SIZE) * ((height + TILE_SIZE - 1) / TILE_SIZE);
+        final AtomicInteger tilesDone = new AtomicInteger(0);
+        for (int ty = 0; ty < height; ty += TILE_SIZE) {
+            for (int tx = 0; tx < width; tx += TILE_SIZE) {
+                final int x0 = tx;
+                final int y0 = ty;
+                final int w = Math.min(TILE_SIZE, width - tx);
+                final int h = Math.min(TILE_SIZE, height - ty);
+                final RandomStream tileRandom = random.split();
+                tasks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        final ComponentJoiner joiner = new ComponentJoiner(floorplan, x0, y0, w, h);
+                        try {
+                            joiner.join(joiner.getClosedEdges(), tileRandom, token);
+                            updatePathwayProgress(tilesDone.incrementAndGet(), tiles);
+                        } catch (InterruptedException e) {
+                            // order is cancelled, the builder notices after all tasks are done
+                        }
+                    }
+                });
+            }
+        }
+        WorkerPool.runAll(tasks);
+        token.check();
+        // step 2: stitch tiles together, only wallboards on seams are candidates
+        if (tasks.size() > 1) {
+            final ComponentJoiner joiner = new ComponentJoiner(floorplan, 0, 0, width, height);
+            joiner.join(joiner.getClosedEdgesOnSeams(TILE_SIZE, TILE_SIZE), random, token);
+        }
+    }
+}
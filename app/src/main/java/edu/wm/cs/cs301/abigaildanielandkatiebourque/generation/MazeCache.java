@@ -0,0 +1,257 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps recently generated mazes in memory such that a repeated order
+ * with the same seed, skill level, builder and perfect flag is served
+ * without running the maze generation again.
+ *
+ * The cache has a budget in bytes. The size of a maze is estimated from
+ * the dimensions of its floorplan and distance matrix and from the number of
+ * nodes and walls in its BSP tree. If a new maze exceeds the budget, the least
+ * recently used mazes are evicted. The budget can be reduced and the cache can be
+ * cleared if the system runs low on memory.
+ *
+ * Orders with passes over the cells (PostProcessedOrder) are not cached, as the
+ * passes are not part of the key, so such an order and the plain order with the same seed
+ * would share one entry.
+ *
+ * A maze that is served from the cache is the same object that was delivered before.
+ * Its walls are marked as not seen before it is handed out again.
+ * Design implements Singleton pattern for the cache that is shared by the app,
+ * other instances can be created with a budget of their own, e.g. for batch tooling.
+ */
+
+public class MazeCache {
+    /** budget of the shared cache, unit is bytes */
+    public static final long DEFAULT_BUDGET = 16L << 20;
+
+    // estimates for the memory footprint of objects on a 32 bit VM, unit is bytes
+    static final int OBJECT_HEADER = 8;
+    static final int ARRAY_HEADER = 12;
+    static final int REFERENCE = 4;
+    static final int MAZE_SIZE = 48;   // MazeContainer with its start position
+    static final int NODE_SIZE = 40;   // BSPBranch or BSPLeaf, including bounds
+    static final int WALL_SIZE = 80;   // Wall including its color array
+
+    /** the shared instance of this class. */
+    private static MazeCache instance = null;
+    /** lock to make the creation of the shared instance thread safe */
+    private static final Object LOCK = new Object();
+
+    private long budget;
+    private long size; // sum of estimated sizes of all cached mazes
+    // access ordered map, iteration starts with the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    /**
+     * A cached maze with its estimated size.
+     */
+    private static class Entry {
+        final Maze maze;
+        final long size;
+
+        Entry(Maze maze, long size) {
+            this.maze = maze;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Constructor
+     * @param budget max sum of estimated sizes of cached mazes, unit is bytes
+     */
+    public MazeCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Delivers the cache that is shared by the app.
+     * @return cache with the default budget
+     */
+    public static MazeCache getCache() {
+        synchronized(LOCK) {
+            if (null == instance)
+                instance = new MazeCache(DEFAULT_BUDGET);
+        }
+        return instance;
+    }
+
+    /**
+     * Gives the maze that has been generated for an order with the same parameters.
+     * @param order the order
+     * @return the maze with all walls marked as not seen, null if there is none in the cache
+     * or the order has passes over the cells
+     */
+    public synchronized Maze get(SeededOrder order) {
+        if (order instanceof PostProcessedOrder)
+            return null;
+        final Entry entry = entries.get(getKey(order));
+        if (null == entry)
+            return null;
+        resetSeen(entry.maze.getRootnode());
+        return entry.maze;
+    }
+
+    /**
+     * Stores the maze that has been generated for the given order.
+     * Least recently used mazes are evicted as necessary to stay within the budget.
+     * A maze that is larger than the whole budget is not stored,
+     * neither is the maze of an order with passes over the cells.
+     * @param order the order
+     * @param maze the maze generated for the order
+     */
+    public synchronized void put(SeededOrder order, Maze maze) {
+        if (order instanceof PostProcessedOrder)
+            return;
+        final long mazeSize = estimateSize(maze);
+        if (mazeSize > budget)
+            return;
+        // the arena must not take back the arrays of a cached maze
+        GenerationArena.getArena().keep(maze);
+        final Entry old = entries.put(getKey(order), new Entry(maze, mazeSize));
+        if (null != old) {
+            size -= old.size;
+            GenerationArena.getArena().unkeep(old.maze);
+        }
+        size += mazeSize;
+        trimToSize(budget);
+    }
+
+    /**
+     * Evicts least recently used mazes till the estimated size of the cache
+     * is at most the given size.
+     * @param maxSize limit for the estimated size, unit is bytes
+     */
+    public synchronized void trimToSize(long maxSize) {
+        final Iterator<Entry> it = entries.values().iterator();
+        while (size > maxSize && it.hasNext()) {
+            final Entry entry = it.next();
+            size -= entry.size;
+            it.remove();
+            GenerationArena.getArena().unkeep(entry.maze);
+        }
+    }
+
+    /**
+     * Tells if the given maze is kept in the cache.
+     * @param maze the maze
+     * @return true if the maze is one of the cached mazes, false otherwise
+     */
+    public synchronized boolean contains(Maze maze) {
+        for (Entry entry : entries.values()) {
+            if (entry.maze == maze)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Evicts all mazes.
+     */
+    public synchronized void clear() {
+        for (Entry entry : entries.values())
+            GenerationArena.getArena().unkeep(entry.maze);
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Sets the budget and evicts mazes as necessary.
+     * @param budget max sum of estimated sizes of cached mazes, unit is bytes
+     */
+    public synchronized void setBudget(long budget) {
+        this.budget = budget;
+        trimToSize(budget);
+    }
+
+    /**
+     * @return the max sum of estimated sizes of cached mazes, unit is bytes
+     */
+    public synchronized long getBudget() {
+        return budget;
+    }
+
+    /**
+     * @return the sum of estimated sizes of cached mazes, unit is bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of cached mazes
+     */
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    /**
+     * Estimates the memory footprint of a maze.
+     * The floorplan is a single int array of the maze dimensions, the distance matrix
+     * is an array of int arrays, the BSP tree is estimated by its number of nodes and walls.
+     * @param maze the maze
+     * @return estimated size, unit is bytes
+     */
+    public static long estimateSize(Maze maze) {
+        final long w = maze.getWidth();
+        final long h = maze.getHeight();
+        final long cells = ARRAY_HEADER + 4*w*h;
+        final long matrix = ARRAY_HEADER + w*(REFERENCE + ARRAY_HEADER + 4*h);
+        long result = MAZE_SIZE + (OBJECT_HEADER + cells) + (OBJECT_HEADER + matrix);
+        final ArrayDeque<BSPNode> stack = new ArrayDeque<BSPNode>();
+        if (null != maze.getRootnode())
+            stack.push(maze.getRootnode());
+        while (!stack.isEmpty()) {
+            final BSPNode node = stack.pop();
+            result += NODE_SIZE;
+            if (node instanceof BSPBranch) {
+                stack.push(((BSPBranch)node).getLeftBranch());
+                stack.push(((BSPBranch)node).getRightBranch());
+            }
+            else if (node instanceof BSPLeaf) {
+                final int walls = ((BSPLeaf)node).getSlist().size();
+                result += OBJECT_HEADER + ARRAY_HEADER + (long)walls*(REFERENCE + WALL_SIZE);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Marks all walls in the given BSP tree as not seen.
+     */
+    private static void resetSeen(BSPNode root) {
+        final ArrayDeque<BSPNode> stack = new ArrayDeque<BSPNode>();
+        if (null != root)
+            stack.push(root);
+        while (!stack.isEmpty()) {
+            final BSPNode node = stack.pop();
+            if (node instanceof BSPBranch) {
+                stack.push(((BSPBranch)node).getLeftBranch());
+                stack.push(((BSPBranch)node).getRightBranch());
+            }
+            else if (node instanceof BSPLeaf) {
+                for (Wall wall : ((BSPLeaf)node).getSlist())
+                    wall.setSeen(false);
+            }
+        }
+    }
+
+    private static String getKey(SeededOrder order) {
+        String key = order.getSeed() + "/" + order.getSkillLevel() + "/" + order.getBuilder() + "/" + order.isPerfect();
+        if (order instanceof DimensionedOrder) {
+            // dimensions and rooms do not come with the skill level
+            final DimensionedOrder dim = (DimensionedOrder)order;
+            key += "/" + dim.getWidth() + "x" + dim.getHeight() + "/" + dim.getRoomCount();
+        }
+        if (order instanceof SpeculativeOrder) {
+            // the best of several candidates is a different maze than the first candidate
+            final SpeculativeOrder spec = (SpeculativeOrder)order;
+            key += "/" + spec.getCandidateCount() + "/" + spec.getCriterion() + "/" + spec.getTargetScore();
+        }
+        return key;
+    }
+}
@@ -31,9 +31,9 @@ import  edu.wm.cs.cs301.abigaildanielandkatiebourque.gui.Constants;
 public class MazeContainer implements Maze {
     // properties of the current maze
     private int width; // width of maze
-    // range: Constants.SKILL_X[0] <= width && width <= Constants.SKILL_X[last])
+    // range: Constants.SKILL_X[0] <= width && width <= DimensionedOrder.MAX_DIMENSION
     private int height; // height of maze
-    // range: Constants.SKILL_Y[0] <= width && width <= Constants.SKILL_Y[last])
+    // range: Constants.SKILL_Y[0] <= height && height <= DimensionedOrder.MAX_DIMENSION
     // (width,height) must be consistent with corresponding settings in mazecells and mazedists
     private Floorplan floorplan ; // maze as a matrix of cells which keep track of the location of wallboards
     private Distance mazedists ; // a matrix with distance values for each cell towards the exit
@@ -42,7 +42,9 @@ public class MazeContainer implements Maze {
     // exit position, such that the exit position in mazecells has the minimum distance value
     // and is also the exit position in mazedists
 
-    private BSPNode rootnode ; // a binary tree type search data structure to quickly locate a subset of segments
+    // a binary tree type search data structure to quickly locate a subset of segments
+    // volatile as the tree of a progressive order is swapped in while the maze is played
+    private volatile BSPNode rootnode ;
     // a segment is a continuous sequence of wallboards in vertical or horizontal direction
     // a subset of segments need to be quickly identified for drawing
     // the BSP tree partitions the set of all segments and provides a binary search tree for the partitions
@@ -68,11 +70,11 @@ public class MazeContainer implements Maze {
         fullyInitialized = false;
     }
     /**
-     * @param width is the width of the maze, must conform with Constants.SKILL_X values
+     * @param width is the width of the maze, at most DimensionedOrder.MAX_DIMENSION
      */
     public void setWidth(int width) {
         assert(Constants.SKILL_X[0] <= width &&
-                width <= Constants.SKILL_X[Constants.SKILL_X.length-1]);
+                width <= DimensionedOrder.MAX_DIMENSION);
         this.width = width;
     }
     /**
@@ -84,12 +86,12 @@ public class MazeContainer implements Maze {
         return width;
     }
     /**
-     * @param height is the height of the maze, must conform with Constants.SKILL_Y values
+     * @param height is the height of the maze, at most DimensionedOrder.MAX_DIMENSION
      */
     public void setHeight(int height) {
         // check if value is in range of values
         assert(Constants.SKILL_Y[0] <= height &&
-                height <= Constants.SKILL_Y[Constants.SKILL_Y.length-1]);
+                height <= DimensionedOrder.MAX_DIMENSION);
         this.height = height;
     }
     /**
@@ -150,7 +152,8 @@ public class MazeContainer implements Maze {
     }
 
     /**
-     * Sets the root for the tree of BSPnodes
+     * Sets the root for the tree of BSPnodes.
+     * Can be called while the maze is played, views see the new tree with their next frame.
      * @param rootnode the rootnode to set
      */
     public void setRootnode(BSPNode rootnode) {
@@ -203,17 +206,15 @@ public class MazeContainer implements Maze {
         // find best candidate
         int dnext = getDistanceToExit(x, y) ;
         int[] result = new int[2] ;
-        int[] dir;
-        for (CardinalDirection cd: CardinalDirection.values()) {
+        for (CardinalDirection cd: CardinalDirection.VALUES) {
             if (hasWall(x, y, cd))
                 continue; // there is a wallboard in the way
             // no wallboard, let's check the distance
-            dir = cd.getDirection();
-            int dn = getDistanceToExit(x+dir[0], y+dir[1]);
+            int dn = getDistanceToExit(x+cd.getDx(), y+cd.getDy());
             if (dn < dnext) {
                 // update neighbor position with min distance
-                result[0] = x+dir[0] ;
-                result[1] = y+dir[1] ;
+                result[0] = x+cd.getDx() ;
+                result[1] = y+cd.getDy() ;
                 dnext = dn ;
             }
         }
@@ -269,11 +270,11 @@ public class MazeContainer implements Maze {
         }
         // check width and height, range of values determined by skill level
         // Constants class
-        int last = Constants.SKILL_X.length-1;
-        if (!(Constants.SKILL_X[0] <= width && width <= Constants.SKILL_X[last])) {
+        // mazes of a DimensionedOrder can be larger than those of the highest skill level
+        if (!(Constants.SKILL_X[0] <= width && width <= DimensionedOrder.MAX_DIMENSION)) {
             return false;
         }
-        if (!(Constants.SKILL_Y[0] <= height && height <= Constants.SKILL_Y[last])) {
+        if (!(Constants.SKILL_Y[0] <= height && height <= DimensionedOrder.MAX_DIMENSION)) {
             return false;
         }
         // check existence of cells, distances, bsp tree and starting position
@@ -1,5 +1,13 @@
 package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 
 /**
  * This class encapsulates how a maze is generated.
@@ -7,13 +15,27 @@ package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
  * that computes and delivers the maze. This class operates the worker thread
  * to do the computation in the background. The maze builder classes contribute
  * a run method to execute on the worker thread.
+ *
+ * By default, the factory works on at most one order at a time and refuses
+ * further orders while it is busy.
+ * In pool mode, the factory operates a bounded pool of worker threads,
+ * queues orders and builds several mazes at the same time.
+ * Each accepted order is represented by an OrderHandle to cancel or wait for that order.
+ * Builds of a factory are interactive unless the factory is set to BACKGROUND priority,
+ * in which case they wait for interactive builds of all factories, see BuildScheduler.
  */
 
 public class MazeFactory implements Factory {
 
+    // pool mode: max number of orders that wait for a worker thread
+    static final int MAX_QUEUED_ORDERS = 16;
+    // pool mode: idle worker threads terminate after this time, unit is seconds
+    static final long KEEP_ALIVE_TIME = 30;
+
     // generation can be deterministic, i.e. same maze is generated each time for a given size
     private boolean deterministic;
     // factory keeps track of the current order, takes at most one order at a time
+    // unless it operates in pool mode
     private Order currentOrder;
     // factory has a MazeBuilder to do the work
     // note that subclasses are instantiated for specific algorithms such as Prim's
@@ -21,91 +43,264 @@ public class MazeFactory implements Factory {
     private MazeBuilder builder;
     //
     private Thread buildThread; // computations are performed in own separated thread with this.run()
+    // pool mode: worker threads and queue of orders, null if factory takes one order at a time
+    private final ThreadPoolExecutor pool;
+    // orders that have been accepted and may not be delivered yet
+    private final List<OrderHandle> outstanding = new ArrayList<OrderHandle>();
+    // optional cache for mazes of seeded orders, null if there is none
+    private MazeCache cache;
+    // priority class for the builds of this factory
+    private BuildScheduler.Priority priority = BuildScheduler.Priority.INTERACTIVE;
 
     //////////////////////// Constructor ////////////////////////////////////////
     /**
      * Constructor for a randomized maze generation
      */
     public MazeFactory(){
-        // nothing to do
+        pool = null;
     }
     /**
      * Constructor with option to make maze generation deterministic or random
      */
     public MazeFactory(boolean deterministic){
         this.deterministic = deterministic;
+        pool = null;
+    }
+    /**
+     * Constructor for a factory in pool mode that works on several orders at the same time.
+     * Orders are queued if all worker threads are busy. An order is refused if the queue is full.
+     * Each builder has a random stream of its own, so mazes that are built at the same time
+     * do not affect each other and a seeded order gives the same maze as in a factory without a pool.
+     * @param deterministic option to make maze generation deterministic or random
+     * @param poolSize max number of mazes that are built at the same time, at least 1
+     */
+    public MazeFactory(boolean deterministic, int poolSize){
+        this(deterministic, poolSize, Thread.NORM_PRIORITY);
+    }
+    /**
+     * Constructor for a factory in pool mode whose worker threads run with the given priority.
+     * A low priority is useful for mazes that are built in the background ahead of time.
+     * @param deterministic option to make maze generation deterministic or random
+     * @param poolSize max number of mazes that are built at the same time, at least 1
+     * @param threadPriority priority of worker threads, between Thread.MIN_PRIORITY and Thread.MAX_PRIORITY
+     */
+    public MazeFactory(boolean deterministic, int poolSize, final int threadPriority){
+        if (poolSize < 1)
+            throw new IllegalArgumentException("MazeFactory: pool size must be positive, is " + poolSize);
+        this.deterministic = deterministic;
+        pool = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(MAX_QUEUED_ORDERS), new ThreadFactory() {
+            private int count = 0;
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "maze-factory-" + (count++));
+                t.setDaemon(true);
+                t.setPriority(threadPriority);
+                return t;
+            }
+        });
+        pool.allowCoreThreadTimeOut(true);
     }
 
     //////////////////////// Factory interface //////////////////////////////////
     @Override
     public boolean order(Order order) {
-        // check if factory is busy
-        if (null != buildThread && buildThread.isAlive()) {
-            // order is currently processed, don't queue, just refuse
-            System.out.println("MazeFactory.order: refusing to take order, too busy with current order");
-            return false;
-        }
-        // idle, so accept order
-        currentOrder = order;
-        // set builder according to order
-        switch (order.getBuilder()) {
-            case DFS :
-                builder = deterministic? new MazeBuilder(true) : new MazeBuilder();
-                buildOrder();
-                break;
-            case Prim:
-                builder = deterministic? new MazeBuilderPrim(true) : new MazeBuilderPrim();
-                buildOrder();
-                break;
-            case Eller:
-                builder = deterministic? new MazeBuilderEller(true) : new MazeBuilderEller();
-                buildOrder();
-                break;
-            default:
-                System.out.println("MazeFactory.order: missing implementation for requested algorithm: " + order.getBuilder());
-                return false;
-        }
-        return true ;
+        return null != submit(order);
     }
     @Override
     public void cancel() {
         System.out.println("MazeFactory.cancel: called");
-        if (null != buildThread) {
-            buildThread.interrupt() ;
-            buildThread = null; // allow for next order to get through
-        }
-        else {
-            System.out.println("MazeFactory.cancel: no thread to cancel");
+        final List<OrderHandle> handles = takeOutstanding();
+        if (handles.isEmpty()) {
+            System.out.println("MazeFactory.cancel: no order to cancel");
         }
         // clean up happens in interrupt handling in run method
-        builder = null;
-        currentOrder = null;
+        for (OrderHandle handle : handles)
+            handle.cancel();
+        synchronized(this) {
+            buildThread = null; // allow for next order to get through
+            builder = null;
+            currentOrder = null;
+        }
     }
     @Override
     public void waitTillDelivered() {
-        if (null != buildThread) {
-            try {
-                buildThread.join();
-            } catch (Exception e) {
-                System.out.println("MazeBuilder.wailTillDelivered: join synchronization with builder thread lead to an exception") ;
-            }
+        final List<OrderHandle> handles = takeOutstanding();
+        if (handles.isEmpty()) {
+            System.out.println("MazeBuilder.waitTillDelivered: no order to wait for");
         }
-        else {
-            System.out.println("MazeBuilder.waitTillDelivered: no thread to wait for");
+        for (OrderHandle handle : handles)
+            handle.waitTillDelivered();
+        synchronized(this) {
+            builder = null;
+            currentOrder = null;
+        }
+    }
+
+    //////////////////////// Orders with handles ////////////////////////////////
+    /**
+     * Takes or rejects an order like {@link #order(Order)} but gives a handle
+     * to cancel the order or to wait for its delivery.
+     * @param order the order
+     * @return handle for the order if it is accepted, null if it is refused
+     */
+    public OrderHandle submit(final Order order) {
+        // a repeated seeded order is served from the cache without building the maze again
+        final Maze cached = (null != cache && order instanceof SeededOrder) ? cache.get((SeededOrder)order) : null;
+        if (null != cached) {
+            System.out.println("MazeFactory.order: delivering maze from cache");
+            final OrderHandle handle = new OrderHandle(order, new Runnable() {
+                @Override
+                public void run() {
+                    order.updateProgress(100);
+                    order.deliver(cached);
+                    if (order instanceof ProgressiveOrder)
+                        ((ProgressiveOrder)order).treeCompleted(cached);
+                }
+            });
+            handle.run();
+            return handle;
+        }
+        final MazeBuilder newBuilder = createBuilder(order);
+        if (null == newBuilder) {
+            System.out.println("MazeFactory.order: missing implementation for requested algorithm: " + order.getBuilder());
+            return null;
+        }
+        synchronized(this) {
+            // check if factory is busy
+            if (null == pool && null != buildThread && buildThread.isAlive()) {
+                // order is currently processed, don't queue, just refuse
+                System.out.println("MazeFactory.order: refusing to take order, too busy with current order");
+                return null;
+            }
+            // accept order
+            currentOrder = order;
+            builder = newBuilder;
+            return buildOrder();
         }
-        builder = null;
-        currentOrder = null;
     }
+
+    /**
+     * Sets a cache for mazes of seeded orders. Delivered mazes are put into the cache
+     * and repeated orders are delivered from the cache right away on the calling thread.
+     * @param cache the cache, null for no caching
+     */
+    public synchronized void setCache(MazeCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Sets the priority class for orders that are accepted from now on.
+     * Mazes that are built ahead of time or in bulk should use BACKGROUND
+     * such that they do not delay orders that a user waits for.
+     * @param priority the priority class
+     */
+    public synchronized void setPriority(BuildScheduler.Priority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Gives the number of accepted orders that are neither delivered nor cancelled yet.
+     * @return number of outstanding orders
+     */
+    public synchronized int getOutstandingOrderCount() {
+        removeDone();
+        return outstanding.size();
+    }
+
     ///////////////////////// private methods ///////////////////////////////////
     /**
-     * Provide the builder with necessary input and start its execution
+     * Instantiates the builder that matches the requested algorithm.
+     * @param order the order
+     * @return builder, null if there is no implementation for the requested algorithm
+     */
+    private MazeBuilder createBuilder(Order order) {
+        // best of several candidates, each candidate has a builder of its own
+        if (order instanceof SpeculativeOrder && ((SpeculativeOrder)order).getCandidateCount() > 1)
+            return deterministic? new SpeculativeMazeBuilder(true) : new SpeculativeMazeBuilder();
+        return createBuilder(order.getBuilder(), deterministic);
+    }
+
+    /**
+     * Instantiates the builder for the given algorithm.
+     * @param algorithm the requested algorithm
+     * @param deterministic true for a builder that always generates the same maze
+     * @return builder, null if there is no implementation for the requested algorithm
+     */
+    static MazeBuilder createBuilder(Order.Builder algorithm, boolean deterministic) {
+        switch (algorithm) {
+            case DFS :
+                return deterministic? new MazeBuilder(true) : new MazeBuilder();
+            case Prim:
+                return deterministic? new MazeBuilderPrim(true) : new MazeBuilderPrim();
+            case Eller:
+                return deterministic? new MazeBuilderEller(true) : new MazeBuilderEller();
+            case Kruskal:
+                return deterministic? new MazeBuilderKruskal(true) : new MazeBuilderKruskal();
+            case Tiled:
+                return deterministic? new MazeBuilderTiled(true) : new MazeBuilderTiled();
+            case RecursiveDivision:
+                return deterministic? new MazeBuilderRecursiveDivision(true) : new MazeBuilderRecursiveDivision();
+            case Sidewinder:
+                return deterministic? new MazeBuilderSidewinder(true) : new MazeBuilderSidewinder();
+            case Boruvka:
+                return deterministic? new MazeBuilderBoruvka(true) : new MazeBuilderBoruvka();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Provide the builder with necessary input and start its execution,
+     * either on a thread of its own or on the pool.
+     * @return handle for the order, null if the pool refused it
      */
-    private void buildOrder() {
+    private OrderHandle buildOrder() {
         if (null == builder)
-            return;
+            return null;
         System.out.println("MazeFactory.buildOrder: started") ;
+        builder.cache = cache;
+        builder.setPriority(priority);
         builder.buildOrder(currentOrder);
-        buildThread = new Thread(builder);
-        buildThread.start();
+        final OrderHandle handle = new OrderHandle(currentOrder, builder);
+        if (null == pool) {
+            buildThread = new Thread(handle);
+            buildThread.start();
+        }
+        else {
+            try {
+                pool.execute(handle);
+            } catch (RejectedExecutionException e) {
+                System.out.println("MazeFactory.order: refusing to take order, too many orders in queue");
+                builder.discard();
+                builder = null;
+                currentOrder = null;
+                return null;
+            }
+        }
+        removeDone();
+        outstanding.add(handle);
+        return handle;
+    }
+
+    /**
+     * Removes handles of orders that are delivered or cancelled.
+     */
+    private void removeDone() {
+        for (int i = outstanding.size()-1; i >= 0; i--) {
+            if (outstanding.get(i).isDone())
+                outstanding.remove(i);
+        }
+    }
+
+    /**
+     * Takes all outstanding handles out of the list.
+     * @return handles of orders that have not been delivered or cancelled
+     */
+    private synchronized List<OrderHandle> takeOutstanding() {
+        removeDone();
+        final List<OrderHandle> result = new ArrayList<OrderHandle>(outstanding);
+        outstanding.clear();
+        return result;
     }
 }
@@ -0,0 +1,215 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a small pool of fully built mazes ready to play such that an order
+ * can be served without waiting for the maze generation.
+ * Pools are kept per combination of skill level, builder algorithm and perfect flag.
+ * A combination is registered when it is asked for the first time, either by
+ * an order or by an explicit call to prefetch. Afterwards its pool is refilled
+ * in the background by a single worker thread with low priority.
+ * Its builds are in the BACKGROUND class and wait while interactive orders are built.
+ *
+ * A maze from the pool is delivered to exactly one order.
+ * If the pool is empty, the order needs to go to a MazeFactory as usual.
+ * Pools hold random mazes of a skill level, so orders that ask for a particular maze,
+ * i.e. a seed, explicit dimensions, the best of several candidates or passes over the cells,
+ * are never served from a pool. The mazes of a pool are built from random seeds,
+ * a SeedReportingOrder learns the seed of the maze it is served such that it can
+ * order the same maze again with a SeededOrder.
+ * Design implements Singleton pattern as the pools are shared across activities.
+ */
+
+public final class MazePrefetcher {
+    /** number of mazes kept ready per combination of skill level, builder and perfect flag */
+    static final int POOL_SIZE = 2;
+
+    /** the single instance of this class. */
+    private static MazePrefetcher instance = null;
+    /** lock to make the creation of the instance thread safe */
+    private static final Object LOCK = new Object();
+
+    /** builds the mazes for the pools, one at a time with low priority */
+    private final MazeFactory factory = new MazeFactory(false, 1, Thread.MIN_PRIORITY);
+    /** gives the seeds for the mazes of the pools */
+    private final RandomStream seeds = new RandomStream();
+    /** orders that have delivered their maze, the maze is ready for delivery */
+    private final Map<String, ArrayDeque<PrefetchOrder>> ready = new HashMap<String, ArrayDeque<PrefetchOrder>>();
+    /** orders placed with the factory that have not delivered their maze yet */
+    private final Map<String, List<PrefetchOrder>> inProduction = new HashMap<String, List<PrefetchOrder>>();
+
+    private MazePrefetcher() {
+        // use getPrefetcher()
+        // mazes in the pools must not delay orders that a user waits for
+        factory.setPriority(BuildScheduler.Priority.BACKGROUND);
+    }
+
+    /**
+     * Delivers the instance of the prefetcher.
+     * @return the prefetcher
+     */
+    public static MazePrefetcher getPrefetcher() {
+        synchronized(LOCK) {
+            if (null == instance)
+                instance = new MazePrefetcher();
+        }
+        return instance;
+    }
+
+    /**
+     * Serves the given order from the pool if a matching maze is ready.
+     * The maze is delivered on the calling thread before this method returns.
+     * Either way, the pool for the order's combination is registered and refilled in the background.
+     * Orders that ask for a particular maze are never served from a pool and do not register one.
+     * @param order the order
+     * @return true if the order has been delivered, false if the order needs to be given to a factory
+     */
+    public boolean take(Order order) {
+        // pools only hold random mazes with the dimensions of a skill level
+        if (order instanceof SeededOrder || order instanceof DimensionedOrder
+                || order instanceof SpeculativeOrder || order instanceof PostProcessedOrder)
+            return false;
+        final String key = getKey(order.getSkillLevel(), order.getBuilder(), order.isPerfect());
+        final PrefetchOrder built;
+        synchronized(this) {
+            final ArrayDeque<PrefetchOrder> mazes = ready.get(key);
+            built = (null == mazes) ? null : mazes.poll();
+            refill(key, order.getSkillLevel(), order.getBuilder(), order.isPerfect());
+        }
+        if (null == built)
+            return false;
+        System.out.println("MazePrefetcher.take: serving order from pool " + key);
+        final Maze maze = built.maze;
+        order.updateProgress(100);
+        if (order instanceof SeedReportingOrder)
+            ((SeedReportingOrder)order).setSeed(built.seed);
+        order.deliver(maze);
+        if (order instanceof ProgressiveOrder)
+            ((ProgressiveOrder)order).treeCompleted(maze);
+        return true;
+    }
+
+    /**
+     * Registers a combination of skill level, builder and perfect flag
+     * such that mazes for it are built in the background.
+     * @param skillLevel the skill level, range of values 0,1,2,...,15
+     * @param builder the builder algorithm
+     * @param perfect true for perfect mazes
+     */
+    public synchronized void prefetch(int skillLevel, Order.Builder builder, boolean perfect) {
+        refill(getKey(skillLevel, builder, perfect), skillLevel, builder, perfect);
+    }
+
+    /**
+     * Drops all mazes that are ready and stops building new ones
+     * until the next call to take or prefetch, e.g. if memory is running low.
+     */
+    public synchronized void clear() {
+        factory.cancel();
+        ready.clear();
+        inProduction.clear();
+    }
+
+    /**
+     * Orders mazes from the factory till the pool for the given key is full.
+     */
+    private void refill(String key, int skillLevel, Order.Builder builder, boolean perfect) {
+        ArrayDeque<PrefetchOrder> mazes = ready.get(key);
+        if (null == mazes) {
+            mazes = new ArrayDeque<PrefetchOrder>(POOL_SIZE);
+            ready.put(key, mazes);
+        }
+        List<PrefetchOrder> pending = inProduction.get(key);
+        if (null == pending) {
+            pending = new ArrayList<PrefetchOrder>(POOL_SIZE);
+            inProduction.put(key, pending);
+        }
+        // builds that are cancelled or failed never deliver, store() removes the others
+        for (int i = pending.size()-1; i >= 0; i--) {
+            if (pending.get(i).handle.isDone())
+                pending.remove(i);
+        }
+        while (mazes.size() + pending.size() < POOL_SIZE) {
+            final PrefetchOrder order = new PrefetchOrder(key, skillLevel, builder, perfect, seeds.nextInt());
+            // store() waits for the lock, so the handle is set before the maze can arrive
+            order.handle = factory.submit(order);
+            if (null == order.handle)
+                break; // factory queue is full, try again later
+            pending.add(order);
+        }
+    }
+
+    /**
+     * Puts a maze that has been built in the background into its pool.
+     */
+    private synchronized void store(PrefetchOrder order, Maze maze) {
+        final ArrayDeque<PrefetchOrder> mazes = ready.get(order.key);
+        final List<PrefetchOrder> pending = inProduction.get(order.key);
+        if (null == mazes || null == pending || !pending.remove(order))
+            return; // pools have been cleared in the meantime
+        order.maze = maze;
+        mazes.add(order);
+        refill(order.key, order.skillLevel, order.builder, order.perfect);
+    }
+
+    private static String getKey(int skillLevel, Order.Builder builder, boolean perfect) {
+        return skillLevel + "/" + builder + "/" + perfect;
+    }
+
+    /**
+     * Order that the prefetcher places with its factory to fill a pool.
+     * Once its maze is built, the order stays in the pool together with its maze.
+     */
+    private class PrefetchOrder implements SeededOrder {
+        final String key;
+        final int skillLevel;
+        final Builder builder;
+        final boolean perfect;
+        final int seed;
+        OrderHandle handle; // set by refill() right after the order is placed
+        Maze maze;          // set by store() once the maze is built
+
+        PrefetchOrder(String key, int skillLevel, Builder builder, boolean perfect, int seed) {
+            this.key = key;
+            this.skillLevel = skillLevel;
+            this.builder = builder;
+            this.perfect = perfect;
+            this.seed = seed;
+        }
+
+        @Override
+        public int getSeed() {
+            return seed;
+        }
+
+        @Override
+        public int getSkillLevel() {
+            return skillLevel;
+        }
+
+        @Override
+        public Builder getBuilder() {
+            return builder;
+        }
+
+        @Override
+        public boolean isPerfect() {
+            return perfect;
+        }
+
+        @Override
+        public void deliver(Maze mazeConfig) {
+            store(this, mazeConfig);
+        }
+
+        @Override
+        public void updateProgress(int percentage) {
+            // nobody is waiting for this maze
+        }
+    }
+}
@@ -22,9 +22,12 @@ public interface Order {
     /**
      * Lists all maze generation algorithms that are supported
      * by the maze factory (Eller needs to be implemented for P2)
-     *
+     * Tiled carves tiles of the maze in parallel and stitches them together.
+     * RecursiveDivision starts from an open maze and adds walls with a single gap.
+     * Sidewinder carves whole rows at once, 64 cells at a time, for bulk generation of simple mazes.
+     * Boruvka builds a random spanning tree in parallel rounds, for large mazes on several cores.
      */
-    enum Builder { DFS, Prim, Kruskal, Eller } ;
+    enum Builder { DFS, Prim, Kruskal, Eller, Tiled, RecursiveDivision, Sidewinder, Boruvka } ;
     /**
      * Describes if the ordered maze should be perfect, i.e. there are
      * no loops and no isolated areas, which also implies that
@@ -0,0 +1,120 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Represents a single order that has been accepted by a MazeFactory.
+ * The handle allows to cancel the order or to wait for its delivery
+ * independently of any other orders the factory is working on.
+ *
+ * The handle is the task that the factory executes on a worker thread.
+ * It runs the maze builder for the order or delivers a maze from a cache.
+ */
+
+public class OrderHandle extends FutureTask<Void> {
+    private final Order order;
+    // the builder for the order, null if the maze comes from somewhere else
+    private final MazeBuilder builder;
+    // true once a worker thread started to work on the order
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    // released when the builder finished, either with a delivery or after a cancel
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    /**
+     * Constructor
+     * @param order the order to fulfill
+     * @param builder the builder that is set up for the order
+     */
+    OrderHandle(Order order, final MazeBuilder builder) {
+        super(builder, null);
+        this.order = order;
+        this.builder = builder;
+    }
+
+    /**
+     * Constructor
+     * @param order the order to fulfill
+     * @param task the task that delivers the maze for the order
+     */
+    OrderHandle(Order order, Runnable task) {
+        super(task, null);
+        this.order = order;
+        this.builder = null;
+    }
+
+    @Override
+    public void run() {
+        if (!started.compareAndSet(false, true))
+            return;
+        try {
+            super.run();
+        }
+        finally {
+            finished.countDown();
+        }
+    }
+
+    /**
+     * Gives the order this handle belongs to.
+     * @return the order
+     */
+    public Order getOrder() {
+        return order;
+    }
+
+    /**
+     * Cancels the order. If the maze is in production, the worker thread is interrupted.
+     * If the order is still waiting in the queue, it is never started.
+     * Either way, the maze is not delivered.
+     */
+    public void cancel() {
+        cancel(true);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        // the builder and its tasks on other threads check the token of the builder
+        if (null != builder)
+            builder.cancel();
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+    /**
+     * Gives the arrays of a builder that never ran back to the arena
+     * once the order is cancelled.
+     */
+    @Override
+    protected void done() {
+        if (null != builder && isCancelled())
+            builder.discard();
+    }
+
+    /**
+     * Wait till the order is fulfilled or cancelled.
+     * This method returns after the produced maze has been delivered
+     * or after the builder stopped working on a cancelled order.
+     */
+    public void waitTillDelivered() {
+        try {
+            get();
+        } catch (CancellationException e) {
+            // the builder may still be cleaning up if it has been running
+            if (started.get()) {
+                try {
+                    finished.await();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } catch (InterruptedException e) {
+            System.out.println("OrderHandle.waitTillDelivered: interrupted while waiting for delivery");
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("OrderHandle: maze generation failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.util.List;
+
+/**
+ * An order for a maze whose layout is post-processed by passes over its cells,
+ * e.g. to remove dead ends or to add loops, see CellPass.
+ * Note that passes that take down wallboards can turn a perfect maze into one with loops.
+ *
+ */
+
+public interface PostProcessedOrder extends Order {
+    /**
+     * Gives the passes for a single maze builder in the order in which they should run.
+     * This is called once per builder, an order that uses several builders at the same
+     * time, e.g. for speculative generation, gets called several times and needs to
+     * deliver new instances each time.
+     */
+    List<CellPass> createCellPasses() ;
+}
@@ -0,0 +1,148 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computes the progress of a maze generation over all of its stages
+ * and passes it on to the order.
+ *
+ * Each stage has a weight that reflects how long it takes compared to the other stages.
+ * The weights are learned: after each generation, the measured time per cell of each stage
+ * is blended into a running estimate that is shared by all generations.
+ * The overall progress is the sum of the weights of completed stages plus the
+ * fraction of the current stage that is done, relative to the sum of all weights.
+ *
+ * Updates are rate limited to MAX_UPDATES_PER_SECOND, the percentage is only passed on
+ * if it increased. An update that comes too early is kept and passed on with the next
+ * update after the interval is over, so stages that report often never stall the bar.
+ * The final 100% is left to the maze builder upon delivery.
+ */
+
+public class ProgressReporter {
+    /**
+     * Stages of the maze generation in the order in which they are executed.
+     */
+    public enum Stage { ROOMS, PATHWAYS, DISTANCES, WALLS, BSP }
+
+    /** max number of updates that are passed on to the order per second */
+    static final int MAX_UPDATES_PER_SECOND = 10;
+    static final long MIN_UPDATE_INTERVAL = 1000000000L / MAX_UPDATES_PER_SECOND; // unit is nanoseconds
+    /** weight of a new measurement in the running estimate of the cost of a stage */
+    static final double LEARNING_RATE = 0.25;
+
+    // running estimate of nanoseconds per cell for each stage, shared by all generations
+    // initial values are rough measurements on a desktop VM
+    private static final double[] COST = { 20, 150, 250, 30, 400 };
+    private static final Object LOCK = new Object();
+
+    private final Order order;
+    private final int cells;
+    private final double[] weights;  // weight of each stage for this generation, 0 for skipped stages
+    private final double[] before;   // sum of weights of all earlier stages
+    private final double total;      // sum of all weights
+    private final long[] elapsed;    // measured time per stage, unit is nanoseconds
+
+    private Stage stage = null;      // current stage
+    private long stageStart;
+    // last percentage passed on to the order and when that happened, updated by any thread
+    private final AtomicInteger reported = new AtomicInteger(0);
+    private final AtomicLong reportedAt = new AtomicLong(0);
+    // highest percentage computed so far, it may not have been passed on yet
+    private final AtomicInteger latest = new AtomicInteger(0);
+
+    /**
+     * Constructor
+     * @param order receives the progress, can be null
+     * @param cells number of cells of the maze
+     * @param withRooms false if the maze has no rooms such that the stage for rooms is skipped
+     */
+    public ProgressReporter(Order order, int cells, boolean withRooms) {
+        this.order = order;
+        this.cells = cells;
+        final int n = Stage.values().length;
+        weights = new double[n];
+        before = new double[n];
+        elapsed = new long[n];
+        synchronized(LOCK) {
+            System.arraycopy(COST, 0, weights, 0, n);
+        }
+        if (!withRooms)
+            weights[Stage.ROOMS.ordinal()] = 0;
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            before[i] = sum;
+            sum += weights[i];
+        }
+        total = sum;
+        reportedAt.set(System.nanoTime() - MIN_UPDATE_INTERVAL);
+    }
+
+    /**
+     * Ends the current stage and starts the given one.
+     * @param next the stage that starts now
+     */
+    public void startStage(Stage next) {
+        final long now = System.nanoTime();
+        if (null != stage)
+            elapsed[stage.ordinal()] += now - stageStart;
+        stage = next;
+        stageStart = now;
+        report(0);
+    }
+
+    /**
+     * Updates the progress within the current stage.
+     * @param fraction part of the current stage that is done, {@code 0 <= fraction <= 1}
+     */
+    public void setStageProgress(double fraction) {
+        if (null != stage)
+            report(Math.min(1.0, Math.max(0.0, fraction)));
+    }
+
+    /**
+     * Ends the last stage and blends the measured times into the estimates
+     * for the weights of later generations.
+     */
+    public void finish() {
+        if (null != stage)
+            elapsed[stage.ordinal()] += System.nanoTime() - stageStart;
+        stage = null;
+        if (cells <= 0)
+            return;
+        synchronized(LOCK) {
+            for (int i = 0; i < COST.length; i++) {
+                if (weights[i] > 0 && elapsed[i] > 0)
+                    COST[i] += LEARNING_RATE * ((double)elapsed[i] / cells - COST[i]);
+            }
+        }
+    }
+
+    /**
+     * Gives the overall progress.
+     * @return percentage of the generation that is done, at most 99
+     */
+    public int getPercentage() {
+        return reported.get();
+    }
+
+    private void report(double fraction) {
+        final int i = stage.ordinal();
+        final int percentage = (total <= 0) ? 0 : Math.min(99, (int)(100 * (before[i] + weights[i] * fraction) / total));
+        // keep the highest percentage, an update that is dropped now is passed on later
+        int current = latest.get();
+        while (percentage > current && !latest.compareAndSet(current, percentage))
+            current = latest.get();
+        final int highest = Math.max(percentage, current);
+        final long now = System.nanoTime();
+        final int last = reported.get();
+        final long lastAt = reportedAt.get();
+        if (highest <= last || now - lastAt < MIN_UPDATE_INTERVAL)
+            return;
+        // only one thread passes a given update on
+        if (reportedAt.compareAndSet(lastAt, now) && reported.compareAndSet(last, highest)) {
+            if (null != order)
+                order.updateProgress(highest);
+        }
+    }
+}
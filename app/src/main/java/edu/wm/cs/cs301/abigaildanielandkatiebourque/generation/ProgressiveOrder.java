@@ -0,0 +1,27 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * An order for a maze that is delivered as soon as it can be played.
+ * For large mazes, building the tree of BSP nodes for the first person view takes
+ * much longer than carving the pathways and computing the distances.
+ * The maze factory delivers the maze right after the layout is done with a tree that
+ * is quick to build and keeps building the regular tree in the background.
+ * Once that is done, the maze factory swaps it into the delivered maze and calls treeCompleted.
+ * Progress updates continue after the delivery till the regular tree is done.
+ *
+ * The floorplan and distances of the delivered maze do not change anymore.
+ * Views that want to benefit from the regular tree need to get it from the maze
+ * for each frame instead of keeping the root node.
+ * A maze that is served from a cache or a pool already has its regular tree,
+ * treeCompleted is called right after the delivery.
+ *
+ */
+
+public interface ProgressiveOrder extends Order {
+    /**
+     * Tells that the regular tree of BSP nodes has been swapped into the delivered maze.
+     * Not called if the order is cancelled before.
+     * @param mazeConfig the maze that has been delivered
+     */
+    void treeCompleted(Maze mazeConfig) ;
+}
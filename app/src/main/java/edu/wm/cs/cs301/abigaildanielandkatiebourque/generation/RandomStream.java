@@ -0,0 +1,137 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements a stream of pseudo random numbers for a single maze builder.
+ * In contrast to SingleRandom, each builder has a stream of its own, so the builder
+ * does not need a lock to draw random numbers and the sequence of random numbers
+ * only depends on the seed, no matter how many other mazes are generated at the same time.
+ *
+ * A stream can be split into a new stream that is statistically independent of it.
+ * A builder that distributes work over several threads splits its stream
+ * once per task, in a fixed order, and hands each task its own stream.
+ * The result is then the same for a given seed regardless of the number of threads.
+ *
+ * The generator is SplitMix64 as described by Steele, Lea and Flood in
+ * "Fast splittable pseudorandom number generators", OOPSLA 2014.
+ * A stream is not thread safe, it is meant to be used by a single thread at a time.
+ */
+
+public final class RandomStream {
+    /** increment of the state for the stream with the default gamma, the golden ratio scaled to 64 bits */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    /** source of seeds for streams that are not seeded explicitly */
+    private static final AtomicLong SEEDER = new AtomicLong(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+    private long seed;        // state, advanced by gamma for each number
+    private final long gamma; // odd increment of the state
+
+    /**
+     * Constructor for a stream with an unpredictable seed.
+     */
+    public RandomStream() {
+        // mix the value of the seeder into seed and gamma the same way as java.util.SplittableRandom,
+        // otherwise consecutive streams are shifted copies of each other
+        final long s = SEEDER.getAndAdd(2*GOLDEN_GAMMA);
+        seed = mix64(s);
+        gamma = mixGamma(s + GOLDEN_GAMMA);
+    }
+
+    /**
+     * Constructor for a stream that is determined by the given seed.
+     * @param seed is the seed value
+     */
+    public RandomStream(final long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private RandomStream(final long seed, final long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Delivers a new stream that is independent of this stream.
+     * This stream advances such that repeated calls deliver different streams.
+     * @return new stream
+     */
+    public RandomStream split() {
+        return new RandomStream(nextLong(), mixGamma(nextSeed()));
+    }
+
+    /**
+     * Delivers a random number.
+     * @return random long value
+     */
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    /**
+     * Delivers a random number.
+     * @return random integer value
+     */
+    public int nextInt() {
+        return mix32(nextSeed());
+    }
+
+    /**
+     * Delivers a random boolean value, true and false are equally likely.
+     * @return random boolean value
+     */
+    public boolean nextBoolean() {
+        return mix32(nextSeed()) < 0;
+    }
+
+    /**
+     * Generate an integer random number in interval [lowerBound,upperBound]
+     * @param lowerBound
+     * @param upperBound
+     * @return random number within given range, distribution is uniform
+     */
+    public int nextIntWithinInterval(final int lowerBound, final int upperBound) {
+        assert(lowerBound <= upperBound) : "parameter error, lowerbound " + lowerBound + "> upper bound" + upperBound ;
+        final int n = upperBound - lowerBound + 1;
+        int r = mix32(nextSeed());
+        if (n <= 0) {
+            // range exceeds an int, draw till the value is in range
+            while (r < lowerBound || r > upperBound)
+                r = mix32(nextSeed());
+            return r;
+        }
+        final int m = n - 1;
+        if ((n & m) == 0) // power of two
+            return lowerBound + (r & m);
+        // reject values from the incomplete last interval to avoid a bias
+        for (int u = r >>> 1; u + m - (r = u % n) < 0; u = mix32(nextSeed()) >>> 1)
+            ;
+        return lowerBound + r;
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int)(((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    /**
+     * Derives an odd gamma value with enough bit transitions for a new stream.
+     */
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        final int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -0,0 +1,128 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * Keeps track of the cells of a floorplan that belong to rooms
+ * such that room placement does not need to scan candidate areas cell by cell.
+ *
+ * The index is a summed-area table over the CW_IN_ROOM flag of the floorplan:
+ * entry (x,y) holds the number of room cells in the rectangle from (0,0) to (x-1,y-1).
+ * With it, the number of room cells in any rectangle is computed in constant time.
+ * The table is updated incrementally when a room is added.
+ *
+ * The overlap test has the same semantics as {@link Floorplan#areaOverlapsWithRoom(int, int, int, int)}.
+ */
+
+public class RoomIndex {
+    private final int width;
+    private final int height;
+    private final int[] table; // (width+1) x (height+1) summed-area table, index y*(width+1)+x
+
+    /**
+     * Constructor, builds the index for the rooms currently present on the given floorplan.
+     * @param floorplan the floorplan, read only
+     */
+    public RoomIndex(Floorplan floorplan) {
+        width = floorplan.width;
+        height = floorplan.height;
+        table = new int[(width+1)*(height+1)];
+        for (int y = 0; y < height; y++) {
+            int rowSum = 0;
+            for (int x = 0; x < width; x++) {
+                if (floorplan.isInRoom(x, y))
+                    rowSum++;
+                table[(y+1)*(width+1) + x+1] = table[y*(width+1) + x+1] + rowSum;
+            }
+        }
+    }
+
+    /**
+     * Checks if there is a cell in the given area or next to it that belongs to a room.
+     * The first corner (rx,ry) is at the upper left position, the second corner (rxl,ryl) is at the lower right position.
+     * Precondition {@code 0 <= rx <= rxl < width, 0 <= ry <= ryl < height}
+     * @return true if area contains a cell that is already in a room or if it is too close to the border, false otherwise
+     */
+    public boolean overlaps(int rx, int ry, int rxl, int ryl) {
+        // there must be at least one cell between area and any existing room or the outside border
+        final int startX = rx-1;
+        final int startY = ry-1;
+        final int stopX = rxl+1;
+        final int stopY = ryl+1;
+        if (startX < 0 || startY < 0 || stopX >= width || stopY >= height)
+            return true;
+        return countRoomCells(startX, startY, stopX, stopY) > 0;
+    }
+
+    /**
+     * Counts the room cells in the rectangle with corners (x1,y1) and (x2,y2), both inclusive.
+     */
+    private int countRoomCells(int x1, int y1, int x2, int y2) {
+        final int w = width+1;
+        return table[(y2+1)*w + x2+1] - table[y1*w + x2+1] - table[(y2+1)*w + x1] + table[y1*w + x1];
+    }
+
+    /**
+     * Records that the given area has become a room.
+     * The area must not overlap with any room that is already recorded.
+     * @param rx 1st corner, x coordinate
+     * @param ry 1st corner, y coordinate
+     * @param rxl 2nd corner, x coordinate
+     * @param ryl 2nd corner, y coordinate
+     */
+    public void addRoom(int rx, int ry, int rxl, int ryl) {
+        // entries below and to the right of (rx,ry) include the part of the room
+        // that lies above and to the left of them
+        for (int y = ry+1; y <= height; y++) {
+            final int dy = Math.min(y, ryl+1) - ry;
+            for (int x = rx+1; x <= width; x++) {
+                table[y*(width+1) + x] += (Math.min(x, rxl+1) - rx) * dy;
+            }
+        }
+    }
+
+    /**
+     * Counts the positions where a room of the given dimensions can be placed.
+     * Positions are upper left corners (rx,ry) with {@code 1 <= rx <= width-rw-1}
+     * and {@code 1 <= ry <= height-rh-1}, as used for room placement in MazeBuilder.
+     * @param rw room width
+     * @param rh room height
+     * @return the number of positions where a room would not overlap
+     */
+    public int countFreePositions(int rw, int rh) {
+        return scanFreePositions(rw, rh, -1, null);
+    }
+
+    /**
+     * Finds the n-th position where a room of the given dimensions can be placed,
+     * counting row by row, with the same range of positions as {@link #countFreePositions(int, int)}.
+     * @param rw room width
+     * @param rh room height
+     * @param n index of the position, {@code 0 <= n < countFreePositions(rw,rh)}
+     * @param result array of length 2 that receives (rx,ry)
+     * @return true if the position was found, false otherwise
+     */
+    public boolean findFreePosition(int rw, int rh, int n, int[] result) {
+        return scanFreePositions(rw, rh, n, result) < 0;
+    }
+
+    /**
+     * Goes through all positions for a room of the given dimensions.
+     * @return -1 if the n-th free position is found and stored in result,
+     * the total number of free positions otherwise
+     */
+    private int scanFreePositions(int rw, int rh, int n, int[] result) {
+        int count = 0;
+        for (int ry = 1; ry <= height-rh-1; ry++) {
+            for (int rx = 1; rx <= width-rw-1; rx++) {
+                if (!overlaps(rx, ry, rx+rw-1, ry+rh-1)) {
+                    if (count == n) {
+                        result[0] = rx;
+                        result[1] = ry;
+                        return -1;
+                    }
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,33 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * A RowSink receives a maze row by row from a generator that streams its
+ * result such as the EllerGenerator. Rows are delivered from top (y == 0)
+ * to bottom (y == height-1). Once a row is delivered, the generator
+ * does not change it anymore.
+ *
+ * A sink can be an in-memory floorplan or a writer that stores rows in a file,
+ * such that the maze does not need to fit into memory.
+ */
+
+public interface RowSink {
+    /**
+     * Tells if the wallboard of cell (x,y) in the given direction must stay in place,
+     * e.g. because it is part of a border.
+     * The generator asks for wallboards in the current row only.
+     * @param x coordinate of cell, {@code 0 <= x < width}
+     * @param y coordinate of cell, {@code 0 <= y < height}
+     * @param cd either East or South
+     * @return true if the wallboard can not be taken down, false otherwise
+     */
+    boolean isBlocked(int x, int y, CardinalDirection cd) ;
+    /**
+     * Receives a finished row of the maze.
+     * The arrays are reused by the generator for the next row,
+     * a sink must copy any content it needs to keep.
+     * @param y the row, {@code 0 <= y < height}
+     * @param eastOpen eastOpen[x] is true if the wallboard between (x,y) and (x+1,y) is taken down
+     * @param southOpen southOpen[x] is true if the wallboard between (x,y) and (x,y+1) is taken down
+     */
+    void acceptRow(int y, boolean[] eastOpen, boolean[] southOpen) ;
+}
@@ -0,0 +1,66 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A RowSink that writes rows of a maze to an output stream in a compact binary format.
+ * This allows to generate mazes that do not fit into memory, e.g. with the EllerGenerator.
+ *
+ * Format: the width and the height as two 4 byte integers, followed by one record per row.
+ * A record holds the bits for the east wallboards followed by the bits for the south wallboards
+ * of the row, each packed into (width+7)/8 bytes with the cell at x in bit (x % 8) of byte x/8.
+ * A bit that is set means that the wallboard has been taken down.
+ *
+ * The writer does not block any wallboards, outside walls are never touched by a generator.
+ */
+
+public class RowStreamWriter implements RowSink {
+    private final DataOutputStream out;
+    private final int height;
+    private final byte[] buffer; // packed bits of a single row, reused
+
+    /**
+     * Constructor, writes the header to the given stream.
+     * @param stream the stream to write to, closed after the last row
+     * @param width width of the maze
+     * @param height height of the maze
+     * @throws IOException if the header can not be written
+     */
+    public RowStreamWriter(OutputStream stream, int width, int height) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(stream));
+        this.height = height;
+        buffer = new byte[(width+7)/8];
+        out.writeInt(width);
+        out.writeInt(height);
+    }
+
+    @Override
+    public boolean isBlocked(int x, int y, CardinalDirection cd) {
+        return false;
+    }
+
+    @Override
+    public void acceptRow(int y, boolean[] eastOpen, boolean[] southOpen) {
+        try {
+            writeBits(eastOpen);
+            writeBits(southOpen);
+            if (y == height-1)
+                out.close();
+        } catch (IOException e) {
+            throw new RuntimeException("RowStreamWriter: failed to write row " + y, e);
+        }
+    }
+
+    private void writeBits(boolean[] bits) throws IOException {
+        for (int i = 0; i < buffer.length; i++)
+            buffer[i] = 0;
+        for (int x = 0; x < bits.length; x++) {
+            if (bits[x])
+                buffer[x >> 3] |= (1 << (x & 7));
+        }
+        out.write(buffer);
+    }
+}
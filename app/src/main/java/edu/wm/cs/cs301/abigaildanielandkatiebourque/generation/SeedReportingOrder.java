@@ -0,0 +1,20 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * An order for a random maze that wants to know the seed of the maze it receives,
+ * e.g. to order the same maze again later on with a SeededOrder.
+ * The MazePrefetcher builds the mazes of its pools from seeds and tells
+ * such an order the seed of the maze that it serves.
+ * An order that is not served from a pool does not learn a seed,
+ * so it needs to pick one itself and order the maze with a SeededOrder.
+ *
+ */
+
+public interface SeedReportingOrder extends Order {
+    /**
+     * Tells the seed value of the maze that is delivered next,
+     * called right before deliver.
+     * @param seed the seed the maze was generated from
+     */
+    void setSeed(int seed) ;
+}
@@ -0,0 +1,17 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * An order for a maze that is generated from a given seed value.
+ * Two orders with the same seed, skill level, builder and perfect flag
+ * describe the same maze, such that the maze factory can serve
+ * a repeated order from its MazeCache without generating the maze again.
+ *
+ */
+
+public interface SeededOrder extends Order {
+    /**
+     * Gives the seed value for the random number generator
+     * that makes the randomized decisions during maze generation.
+     */
+    int getSeed() ;
+}
@@ -0,0 +1,197 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * This class has the responsibility to create a maze for a SpeculativeOrder,
+ * the best of several candidates.
+ *
+ * Each candidate has a builder of its own for the requested algorithm with a random stream
+ * that is split off the stream of this builder, so a seeded order gives the same result
+ * every time. The layouts of all candidates are generated at the same time, each on a thread
+ * of its own since builders may distribute their work on the WorkerPool. When a candidate
+ * is done, it is scored. If it reaches the target score, all candidates after it are
+ * cancelled as they can no longer win. The winning layout is adopted by this builder,
+ * which then continues as usual with the BSP tree and delivery.
+ * The wall-clock time is close to that of a single build if there are enough cores.
+ */
+
+public class SpeculativeMazeBuilder extends MazeBuilder implements Runnable {
+    private final boolean deterministic;
+    private MazeBuilder[] candidates;
+    private int[] scores;        // score of each candidate that is done
+    private boolean[] done;      // true for candidates that delivered a layout
+    private boolean[] cancelled; // true for candidates that were cancelled
+
+    public SpeculativeMazeBuilder() {
+        super();
+        deterministic = false;
+        System.out.println("SpeculativeMazeBuilder builds several candidates and picks the best.");
+    }
+
+    public SpeculativeMazeBuilder(boolean det) {
+        super(det);
+        deterministic = det;
+        System.out.println("SpeculativeMazeBuilder builds several candidates and picks the best.");
+    }
+
+    /**
+     * Sets internal fields according to given order and sets up a builder for each candidate.
+     * @param order is a SpeculativeOrder
+     */
+    @Override
+    public void buildOrder(Order order) {
+        super.buildOrder(order);
+        final int n = Math.max(1, ((SpeculativeOrder)order).getCandidateCount());
+        synchronized(this) {
+            candidates = new MazeBuilder[n];
+            scores = new int[n];
+            done = new boolean[n];
+            cancelled = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                candidates[i] = MazeFactory.createBuilder(order.getBuilder(), deterministic);
+                if (null == candidates[i])
+                    throw new RuntimeException("SpeculativeMazeBuilder: missing implementation for requested algorithm: " + order.getBuilder());
+                // the order is only used for its parameters, candidates do not deliver
+                candidates[i].setPriority(getPriority());
+                candidates[i].buildOrder(order);
+            }
+        }
+        // split streams in the order of candidates after buildOrder set the seed
+        for (MazeBuilder c : candidates)
+            c.random = random.split();
+    }
+
+    /**
+     * Generates the layouts of all candidates in parallel and adopts the best one.
+     */
+    @Override
+    protected void generateLayout() throws InterruptedException {
+        final SpeculativeOrder spec = (SpeculativeOrder)order;
+        progress.startStage(ProgressReporter.Stage.PATHWAYS);
+        final Thread[] threads = new Thread[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            final int index = i;
+            final MazeBuilder c = candidates[i];
+            c.progress = new ProgressReporter(null, width*height, false); // progress is reported for all candidates together
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        c.generateLayout();
+                        candidateDone(index, spec.getCriterion().score(c.floorplan, c.dists), spec.getTargetScore());
+                    } catch (InterruptedException e) {
+                        candidateCancelled(index);
+                    }
+                }
+            }, "maze-candidate-" + i);
+            threads[i].start();
+        }
+        try {
+            for (Thread t : threads)
+                t.join();
+        } catch (InterruptedException e) {
+            cancelCandidates(0);
+            throw e;
+        }
+        token.check();
+        final int winner = getWinner(spec.getTargetScore());
+        if (winner < 0)
+            throw new InterruptedException("all candidates were cancelled");
+        dbg("candidate " + winner + " wins with score " + scores[winner]);
+        // all candidates are done, only the winner is kept
+        final GenerationArena arena = GenerationArena.getArena();
+        arena.release(floorplan);
+        arena.release(dists);
+        for (int i = 0; i < candidates.length; i++) {
+            if (i != winner) {
+                arena.release(candidates[i].floorplan);
+                arena.release(candidates[i].dists);
+            }
+        }
+        final MazeBuilder c = candidates[winner];
+        floorplan = c.floorplan;
+        dists = c.dists;
+        startx = c.startx;
+        starty = c.starty;
+        synchronized(this) {
+            candidates = null;
+        }
+    }
+
+    /**
+     * Gives the floorplans and distances of the builder and all of its candidates
+     * back to the arena if the builder never runs.
+     */
+    @Override
+    boolean discard() {
+        final MazeBuilder[] all;
+        synchronized(this) {
+            all = candidates;
+        }
+        if (!super.discard())
+            return false;
+        // candidates never run on their own, so they are discarded together with the builder
+        if (null != all) {
+            for (MazeBuilder c : all)
+                c.discard();
+        }
+        return true;
+    }
+
+    /**
+     * Tells the builder and all of its candidates to stop working on the order.
+     */
+    @Override
+    public void cancel() {
+        super.cancel();
+        cancelCandidates(0);
+    }
+
+    private synchronized void candidateDone(int index, int score, int target) {
+        scores[index] = score;
+        done[index] = true;
+        progress.setStageProgress((double)countFinished() / done.length);
+        if (score >= target)
+            cancelCandidates(index + 1);
+    }
+
+    private synchronized void candidateCancelled(int index) {
+        cancelled[index] = true;
+    }
+
+    private synchronized int countFinished() {
+        int result = 0;
+        for (int i = 0; i < done.length; i++) {
+            if (done[i] || cancelled[i])
+                result++;
+        }
+        return result;
+    }
+
+    /**
+     * Cancels all candidates from the given index on.
+     */
+    private synchronized void cancelCandidates(int from) {
+        if (null == candidates)
+            return;
+        for (int i = from; i < candidates.length; i++)
+            candidates[i].cancel();
+    }
+
+    /**
+     * Gives the first candidate that reaches the target or the first candidate
+     * with the highest score if none does.
+     * @return index of the winner, -1 if no candidate is done
+     */
+    private synchronized int getWinner(int target) {
+        int result = -1;
+        for (int i = 0; i < done.length; i++) {
+            if (!done[i])
+                continue;
+            if (scores[i] >= target)
+                return i;
+            if (result < 0 || scores[i] > scores[result])
+                result = i;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * An order for the best of several candidate mazes.
+ * The maze factory generates the layouts of the candidates in parallel,
+ * scores each of them with the given criterion and delivers the candidate
+ * with the highest score. Only the winner gets a BSP tree.
+ *
+ * If a candidate reaches the target score, candidates that come after it
+ * can no longer win and are cancelled. The winner is the first candidate that
+ * reaches the target or, if none does, the first one with the highest score,
+ * so the result does not depend on the timing of threads.
+ *
+ */
+
+public interface SpeculativeOrder extends Order {
+    /**
+     * Gives the number of candidates, 1 or more.
+     */
+    int getCandidateCount() ;
+    /**
+     * Gives the criterion that the candidates are scored with.
+     */
+    Criterion getCriterion() ;
+    /**
+     * Gives the score that is good enough, Integer.MAX_VALUE to always consider all candidates.
+     */
+    int getTargetScore() ;
+    /**
+     * Lists the criteria to score a candidate, a higher score is better.
+     * MaxDistance is the length of the path from the starting position to the exit.
+     * DeadEnds is the number of cells with wallboards on three sides.
+     */
+    enum Criterion {
+        MaxDistance {
+            @Override
+            int score(Floorplan floorplan, Distance dists) {
+                return dists.getMaxDistance();
+            }
+        },
+        DeadEnds {
+            @Override
+            int score(Floorplan floorplan, Distance dists) {
+                final CardinalDirection[] dirs = CardinalDirection.VALUES;
+                int result = 0;
+                for (int y = 0; y < floorplan.height; y++) {
+                    for (int x = 0; x < floorplan.width; x++) {
+                        int walls = 0;
+                        for (CardinalDirection cd : dirs) {
+                            if (floorplan.hasWall(x, y, cd))
+                                walls++;
+                        }
+                        if (3 == walls)
+                            result++;
+                    }
+                }
+                return result;
+            }
+        };
+
+        /**
+         * Scores the layout of a maze.
+         * @param floorplan wallboards of the maze, read only
+         * @param dists distances to the exit, read only
+         * @return the score, higher is better
+         */
+        abstract int score(Floorplan floorplan, Distance dists);
+    }
+}
@@ -0,0 +1,72 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+/**
+ * A pass that counts cells by their number of wallboards:
+ * dead ends have three wallboards, corridors and turns have two,
+ * junctions have one or none. It also counts the internal wallboards that are open.
+ * The counts describe the maze as it is when the pass visits the cells, so a statistics pass
+ * that is registered after passes that change the maze sees their result.
+ */
+
+public class StatisticsPass implements CellPass {
+
+    private Floorplan floorplan;
+    private int deadEnds;
+    private int corridors;
+    private int junctions;
+    private int openings;
+
+    @Override
+    public void begin(Floorplan floorplan, RandomStream random) {
+        this.floorplan = floorplan;
+        deadEnds = 0;
+        corridors = 0;
+        junctions = 0;
+        openings = 0;
+    }
+
+    @Override
+    public void visit(int x, int y) {
+        int walls = 0;
+        for (CardinalDirection cd : CardinalDirection.VALUES) {
+            if (floorplan.hasWall(x, y, cd))
+                walls++;
+        }
+        if (3 == walls)
+            deadEnds++;
+        else if (2 == walls)
+            corridors++;
+        else if (walls < 2)
+            junctions++;
+        if (x < floorplan.width-1 && floorplan.hasNoWall(x, y, CardinalDirection.East))
+            openings++;
+        if (y < floorplan.height-1 && floorplan.hasNoWall(x, y, CardinalDirection.South))
+            openings++;
+    }
+
+    @Override
+    public void end() {
+        floorplan = null;
+    }
+
+    public int getDeadEndCount() {
+        return deadEnds;
+    }
+
+    public int getCorridorCount() {
+        return corridors;
+    }
+
+    public int getJunctionCount() {
+        return junctions;
+    }
+
+    /**
+     * Gives the number of internal wallboards that are open.
+     * A connected maze with n cells has at least n-1 openings, each additional opening adds a loop.
+     * @return number of openings between adjacent cells
+     */
+    public int getOpeningCount() {
+        return openings;
+    }
+}
@@ -465,8 +465,8 @@ public class Wall {
             // difference between beginning of wall and y
             // difference between end of wall and x
             // difference between end of wall and y
-            int dotStart = calculateDot(se.getStartPositionX() - x, se.getStartPositionY() - y);
-            int dotEnd = calculateDot(se.getEndPositionX() - x, se.getEndPositionY() - y);
+            long dotStart = calculateDot(se.getStartPositionX() - x, se.getStartPositionY() - y);
+            long dotEnd = calculateDot(se.getEndPositionX() - x, se.getEndPositionY() - y);
             // update splits if necessary
             if (BSPBuilder.getSign(dotStart) != BSPBuilder.getSign(dotEnd)) {
                 if (dotStart == 0)
@@ -496,8 +496,9 @@ public class Wall {
      * @param df1y
      * @return
      */
-    private int calculateDot(int df1x, int df1y) {
-        return df1x * dy + df1y * (-dx);
+    private long calculateDot(int df1x, int df1y) {
+        // map coordinates of large mazes overflow an int product
+        return (long) df1x * dy + (long) df1y * (-dx);
     }
 }
 
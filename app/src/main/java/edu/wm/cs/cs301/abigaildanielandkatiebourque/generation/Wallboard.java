@@ -12,7 +12,7 @@ public class Wallboard {
     // Cell location (x,y) pair.
     private int x;
     private int y;
-    private int[] d; // direction (dx,dy) pair
+    private CardinalDirection cd; // direction, gives the (dx,dy) pair
 
     /**
      * Constructor, values have same effect has setWall(x,y,cd).
@@ -24,7 +24,7 @@ public class Wallboard {
     {
         this.x = x;
         this.y = y;
-        d = cd.getDirection();
+        this.cd = cd;
     }
     /**
      * Sets the internal fields to the given values for a (x,y)
@@ -37,7 +37,7 @@ public class Wallboard {
     {
         this.x = x;
         this.y = y;
-        d = cd.getDirection();
+        this.cd = cd;
     }
     /**
      * Get the x coordinate for the current (x,y) position.
@@ -66,7 +66,19 @@ public class Wallboard {
         x = random.nextIntWithinInterval(0, width-1) ;
         y = random.nextIntWithinInterval(0, height - 1);
         // pick a direction,
-        d = CardinalDirection.East.randomDirection().getDirection() ;
+        cd = CardinalDirection.East.randomDirection() ;
+    }
+    /**
+     * Pick a random position (x,y) and a random direction within the
+     * given limits from the given random number stream and assign these values to this wallboard.
+     * @param width such that 0 <= x < width
+     * @param height such that 0 <= y < height
+     * @param random the random number stream, e.g. the one of a maze builder
+     */
+    public void setRandomly(int width, int height, RandomStream random) {
+        x = random.nextIntWithinInterval(0, width-1) ;
+        y = random.nextIntWithinInterval(0, height - 1);
+        cd = CardinalDirection.East.randomDirection(random) ;
     }
     /**
      * Computes the x coordinate of neighboring (adjacent) cell for internal walls.
@@ -75,7 +87,7 @@ public class Wallboard {
      * @return the x coordinate of adjacent cell
      */
     public int getNeighborX() {
-        return x+d[0] ;
+        return x+cd.getDx() ;
     }
     /**
      * Computes the y coordinate of neighboring (adjacent) cell for internal walls.
@@ -84,7 +96,7 @@ public class Wallboard {
      * @return  the y coordinate of adjacent cell
      */
     public int getNeighborY() {
-        return y+d[1] ;
+        return y+cd.getDy() ;
     }
     /**
      * Provides the direction for the wallboard with regard to the
@@ -92,7 +104,7 @@ public class Wallboard {
      * @return the direction of this wallboard with regard to its cell location
      */
     public CardinalDirection getDirection() {
-        return CardinalDirection.getDirection(d[0], d[1]) ;
+        return cd ;
     }
 
 }
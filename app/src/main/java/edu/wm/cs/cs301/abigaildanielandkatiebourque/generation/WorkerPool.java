@@ -0,0 +1,114 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Provides a shared pool of worker threads for maze generation algorithms
+ * that split their work into independent tasks, e.g. tiles of a floorplan.
+ * The pool has one thread per available processor unless tests set another number.
+ * Its threads are daemon threads such that they do not keep the application alive.
+ *
+ * Tasks submitted to the pool must not wait for other tasks of the pool
+ * as this can exhaust the pool.
+ */
+
+public final class WorkerPool {
+    /** the shared executor, created on demand */
+    private static ExecutorService executor = null;
+    /** lock to make the creation of the executor thread safe */
+    private static final Object LOCK = new Object();
+    /** number of threads of the executor */
+    private static int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private WorkerPool() {
+        // static methods only
+    }
+
+    /**
+     * Gives the number of threads in the pool.
+     * @return number of worker threads
+     */
+    public static int getParallelism() {
+        synchronized(LOCK) {
+            return parallelism;
+        }
+    }
+
+    /**
+     * Sets the number of threads in the pool, such that tests can check that
+     * mazes do not depend on it. Tasks that already run finish on their old threads.
+     * @param threads number of worker threads, at least 1
+     */
+    static void setParallelism(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("WorkerPool: number of threads must be positive, is " + threads);
+        synchronized(LOCK) {
+            parallelism = threads;
+            if (null != executor) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+
+    /**
+     * Delivers the shared executor.
+     * @return executor with one daemon thread per processor
+     */
+    public static ExecutorService getExecutor() {
+        synchronized(LOCK) {
+            if (null == executor) {
+                executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+                    private int count = 0;
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "maze-worker-" + (count++));
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Runs all given tasks on the pool and waits for their completion.
+     * If the calling thread is interrupted, pending tasks are cancelled.
+     * @param tasks independent tasks
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     * @throws RuntimeException if a task fails with an exception
+     */
+    public static void runAll(List<Runnable> tasks) throws InterruptedException {
+        if (tasks.size() == 1) {
+            // no need to involve other threads
+            tasks.get(0).run();
+            return;
+        }
+        final ExecutorService pool = getExecutor();
+        final List<Future<?>> futures = new ArrayList<Future<?>>(tasks.size());
+        for (Runnable task : tasks)
+            futures.add(pool.submit(task));
+        try {
+            for (Future<?> f : futures)
+                f.get();
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            throw e;
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            throw new RuntimeException("WorkerPool: task failed", e.getCause());
+        }
+    }
+
+    private static void cancelAll(List<Future<?>> futures) {
+        for (Future<?> f : futures)
+            f.cancel(true);
+    }
+}
@@ -5,6 +5,7 @@ import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.BSPBranch;
 import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.BSPLeaf;
 import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.BSPNode;
 import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.Floorplan;
+import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.Maze;
 import edu.wm.cs.cs301.abigaildanielandkatiebourque.generation.Wall;
 import java.util.ArrayList;
 
@@ -50,6 +51,11 @@ public class FirstPersonView {
      * It also used to decide visibility of walls.
      */
     final private BSPNode bspRoot;
+    /**
+     * The maze to get the tree from for each frame, null if bspRoot is fixed.
+     * The tree of a maze from a progressive order is replaced once the regular tree is done.
+     */
+    final private Maze maze;
 
     /**
      * The current viewing angle. This information is used in rotations
@@ -131,12 +137,35 @@ public class FirstPersonView {
         this.stepSize = stepSize;
         this.seenWalls = seenWalls;
         this.bspRoot = bspRoot;
+        this.maze = null;
         // constants and derived values
         angle = 0; // angle for initial setting of direction is 0 == East, hidden constraint across classes
         scaleZ = viewHeight/2;
         // initialize fields
         rSet = new RangeSet();
     }
+    /**
+     * Constructor for a view that gets the tree from the maze for each frame,
+     * such that it picks up the regular tree of a maze that is delivered progressively.
+     * @param width of display
+     * @param height of display
+     * @param mapUnit current scaling factor
+     * @param stepSize
+     * @param seenWalls to store which walls were put on display
+     * @param maze the maze to draw
+     */
+    public FirstPersonView(int width, int height, int mapUnit, int stepSize, Floorplan seenWalls, Maze maze) {
+        viewWidth = width;
+        viewHeight = height;
+        this.mapUnit = mapUnit;
+        this.stepSize = stepSize;
+        this.seenWalls = seenWalls;
+        this.bspRoot = null;
+        this.maze = maze;
+        angle = 0; // angle for initial setting of direction is 0 == East, hidden constraint across classes
+        scaleZ = viewHeight/2;
+        rSet = new RangeSet();
+    }
     /**
      * Draws the first person view on the screen during the game
      * @param mazePanel for drawing on the buffer image
@@ -176,7 +205,7 @@ public class FirstPersonView {
         traverseNodeCounter = traverseWallSectorCounter =
                 drawRectCounter = drawRectLateCounter = drawRectWallCounter = 0;
         //
-        drawAllVisibleSectors(bspRoot);
+        drawAllVisibleSectors((null != maze) ? maze.getRootnode() : bspRoot);
     }
 
 
@@ -241,7 +270,8 @@ public class FirstPersonView {
         }
         nesting++; // debug
 
-        final int dot = (viewX-n.getX())*n.getDy() - (viewY-n.getY())*n.getDx();
+        // products of map coordinates overflow an int for large mazes
+        final long dot = (long)(viewX-n.getX())*n.getDy() - (long)(viewY-n.getY())*n.getDx();
         // The type of tree traversal depends on the value of dot
         // either do right before left or vice versa
         // but only if node is visible at all
@@ -339,10 +369,11 @@ public class FirstPersonView {
         int viewDX = getViewDX(angle) ;
         int viewDY = getViewDY(angle) ;
 
-        int x1 = -unscaleViewD(viewDY*p1x - viewDX*p1y);
-        int z1 = -unscaleViewD(viewDX*p1x + viewDY*p1y);
-        int x2 = -unscaleViewD(viewDY*p2x - viewDX*p2y);
-        int z2 = -unscaleViewD(viewDX*p2x + viewDY*p2y);
+        // view directions are scaled by 2^16, so products are computed as long
+        int x1 = -unscaleViewD((long)viewDY*p1x - (long)viewDX*p1y);
+        int z1 = -unscaleViewD((long)viewDX*p1x + (long)viewDY*p1y);
+        int x2 = -unscaleViewD((long)viewDY*p2x - (long)viewDX*p2y);
+        int z2 = -unscaleViewD((long)viewDX*p2x + (long)viewDY*p2y);
 
         return new RangePair(x1, z1, x2, z2);
     }
@@ -539,6 +570,14 @@ public class FirstPersonView {
         // preserves sign
         return x >> 16;
     }
+    /**
+     * Unscale given value, same as unscaleViewD(int) for products that may exceed an int
+     * @param x input value
+     * @return unscaled input
+     */
+    final int unscaleViewD(long x) {
+        return (int) (x >> 16);
+    }
     /**
      * Helper method for debugging
      * @param str is the message
@@ -249,16 +249,17 @@ public class MazeFileReader {
      * @param eElement to read data from
      */
     private Floorplan readCells(Element eElement) {
-        int [][]cellValue = new int[width][height] ;
+        // cells are numbered column by column in the file, the floorplan keeps them row by row
+        int []cellValue = new int[width*height] ;
         int number = 0 ;
 
         for ( int x = 0; x != width; x++) {
             for ( int y = 0; y != height; y++) {
-                cellValue[x][y] = getElementIntValue("cell"+ "_" + Integer.toString(number), eElement);
+                cellValue[y*width + x] = getElementIntValue("cell"+ "_" + Integer.toString(number), eElement);
                 number++;
             }
         }
-        return new Floorplan(cellValue);
+        return Floorplan.wrap(width, height, cellValue);
     }
 
     /**
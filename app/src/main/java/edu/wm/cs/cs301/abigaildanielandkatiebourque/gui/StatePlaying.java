@@ -85,7 +85,7 @@ public class StatePlaying extends DefaultState {
     protected void startDrawer() {
         firstPersonView = new FirstPersonView(Constants.VIEW_WIDTH,
                 Constants.VIEW_HEIGHT, Constants.MAP_UNIT,
-                Constants.STEP_SIZE, seenCells, mazeConfig.getRootnode()) ;
+                Constants.STEP_SIZE, seenCells, mazeConfig) ;
         mapView = new Map(seenCells, 15, mazeConfig) ;
         // draw the initial screen for this state
         draw();
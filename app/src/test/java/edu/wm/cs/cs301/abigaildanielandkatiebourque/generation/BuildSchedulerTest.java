@@ -0,0 +1,171 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that background builds wait at their checkpoints while an interactive build runs
+ * and continue or leave once it is done or they are cancelled.
+ */
+public class BuildSchedulerTest {
+    private static final long TIMEOUT = 30000; // unit is milliseconds
+
+    /**
+     * Order whose progress updates can be held till it is released.
+     */
+    private static class TestOrder implements SeededOrder {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release;
+        volatile Maze maze;
+
+        TestOrder(boolean blocking) {
+            release = new CountDownLatch(blocking ? 1 : 0);
+        }
+        @Override
+        public int getSeed() {
+            return 4;
+        }
+        @Override
+        public int getSkillLevel() {
+            return 3;
+        }
+        @Override
+        public Builder getBuilder() {
+            return Builder.Prim;
+        }
+        @Override
+        public boolean isPerfect() {
+            return false;
+        }
+        @Override
+        public void deliver(Maze mazeConfig) {
+            maze = mazeConfig;
+        }
+        @Override
+        public void updateProgress(int percentage) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Starts a thread that passes a checkpoint of the given background token.
+     * @param failure receives the exception of the checkpoint, if any
+     */
+    private static Thread passCheckpoint(final CancellationToken token, final AtomicReference<Exception> failure) {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    token.checkpoint();
+                } catch (InterruptedException e) {
+                    failure.set(e);
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitWaiting(int count) throws InterruptedException {
+        final long end = System.currentTimeMillis() + TIMEOUT;
+        while (BuildScheduler.getScheduler().getWaitingCount() != count) {
+            assertTrue("background builds do not wait in time", System.currentTimeMillis() < end);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testBackgroundWaitsForInteractive() throws InterruptedException {
+        final BuildScheduler scheduler = BuildScheduler.getScheduler();
+        final CancellationToken token = new CancellationToken();
+        token.setPriority(BuildScheduler.Priority.BACKGROUND);
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        scheduler.beginInteractive();
+        final Thread thread;
+        try {
+            thread = passCheckpoint(token, failure);
+            awaitWaiting(1);
+            assertTrue(thread.isAlive());
+        }
+        finally {
+            scheduler.endInteractive();
+        }
+        thread.join(TIMEOUT);
+        assertFalse(thread.isAlive());
+        assertNull(failure.get());
+        assertEquals(0, scheduler.getWaitingCount());
+    }
+
+    @Test
+    public void testCancelledBackgroundLeaves() throws InterruptedException {
+        final BuildScheduler scheduler = BuildScheduler.getScheduler();
+        final CancellationToken token = new CancellationToken();
+        token.setPriority(BuildScheduler.Priority.BACKGROUND);
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        scheduler.beginInteractive();
+        try {
+            final Thread thread = passCheckpoint(token, failure);
+            awaitWaiting(1);
+            token.cancel();
+            thread.join(TIMEOUT);
+            assertFalse("cancelled build still waits", thread.isAlive());
+            assertTrue(failure.get() instanceof InterruptedException);
+        }
+        finally {
+            scheduler.endInteractive();
+        }
+    }
+
+    /**
+     * An interactive checkpoint never waits, even while other interactive builds run.
+     */
+    @Test
+    public void testInteractiveDoesNotWait() throws InterruptedException {
+        final BuildScheduler scheduler = BuildScheduler.getScheduler();
+        scheduler.beginInteractive();
+        try {
+            new CancellationToken().checkpoint();
+        }
+        finally {
+            scheduler.endInteractive();
+        }
+    }
+
+    /**
+     * A background factory does not start its build while an interactive build runs
+     * and delivers once the interactive build is done.
+     */
+    @Test
+    public void testInteractiveBuildPreemptsBackgroundBuild() throws InterruptedException {
+        final MazeFactory interactive = new MazeFactory(false);
+        final TestOrder first = new TestOrder(true);
+        assertTrue(interactive.order(first));
+        first.started.await();
+        assertEquals(1, BuildScheduler.getScheduler().getInteractiveCount());
+
+        final MazeFactory background = new MazeFactory(false);
+        background.setPriority(BuildScheduler.Priority.BACKGROUND);
+        final TestOrder second = new TestOrder(false);
+        assertTrue(background.order(second));
+        awaitWaiting(1);
+        assertEquals(1, second.started.getCount());
+        assertNull(second.maze);
+
+        first.release.countDown();
+        interactive.waitTillDelivered();
+        background.waitTillDelivered();
+        assertNotNull(first.maze);
+        assertNotNull(second.maze);
+        assertEquals(first.maze.getFloorplan(), second.maze.getFloorplan());
+        assertEquals(0, BuildScheduler.getScheduler().getInteractiveCount());
+    }
+}
@@ -0,0 +1,106 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that a cancelled token stops the stages of a build
+ * and that a cancelled build delivers nothing.
+ */
+public class CancellationTokenTest {
+
+    /**
+     * Order that keeps the builder busy in its first progress update till it is released.
+     */
+    private static class BlockingOrder implements SeededOrder {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile Maze maze;
+
+        @Override
+        public int getSeed() {
+            return 3;
+        }
+        @Override
+        public int getSkillLevel() {
+            return 5;
+        }
+        @Override
+        public Builder getBuilder() {
+            return Builder.DFS;
+        }
+        @Override
+        public boolean isPerfect() {
+            return false;
+        }
+        @Override
+        public void deliver(Maze mazeConfig) {
+            maze = mazeConfig;
+        }
+        @Override
+        public void updateProgress(int percentage) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    public void testCheckAfterCancel() throws InterruptedException {
+        final CancellationToken token = new CancellationToken();
+        token.check();
+        assertFalse(token.isCancelled());
+        token.cancel();
+        assertTrue(token.isCancelled());
+        try {
+            token.check();
+            fail("check() of a cancelled token returns");
+        } catch (InterruptedException e) {
+            // expected
+        }
+    }
+
+    /**
+     * tick() only reads the flag every CHECK_INTERVAL calls.
+     */
+    @Test
+    public void testTickChecksAtInterval() throws InterruptedException {
+        final CancellationToken token = new CancellationToken();
+        token.cancel();
+        for (int i = 1; i < CancellationToken.CHECK_INTERVAL; i++)
+            token.tick();
+        try {
+            token.tick();
+            fail("tick() does not check a cancelled token after CHECK_INTERVAL calls");
+        } catch (InterruptedException e) {
+            // expected
+        }
+    }
+
+    /**
+     * A build that is cancelled while it runs stops at its next check
+     * and gives its floorplan and distances back to the arena.
+     */
+    @Test
+    public void testCancelRunningBuild() throws InterruptedException {
+        final MazeFactory factory = new MazeFactory(false);
+        final BlockingOrder order = new BlockingOrder();
+        final OrderHandle handle = factory.submit(order);
+        order.started.await();
+        final GenerationArena arena = GenerationArena.getArena();
+        arena.clear();
+        handle.cancel();
+        order.release.countDown();
+        handle.waitTillDelivered();
+        assertTrue(handle.isCancelled());
+        assertNull(order.maze);
+        assertEquals(2, arena.getCount());
+        arena.clear();
+    }
+}
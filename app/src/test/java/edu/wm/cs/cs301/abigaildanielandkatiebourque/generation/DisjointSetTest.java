@@ -0,0 +1,105 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests DisjointSet and ConcurrentDisjointSet, the latter also with several threads.
+ */
+public class DisjointSetTest {
+    private static final int SIZE = 10000;
+
+    @Test
+    public void testDisjointSetStartsWithSingletons() {
+        final DisjointSet sets = new DisjointSet(SIZE);
+        assertEquals(SIZE, sets.getCount());
+        for (int i = 0; i < SIZE; i++)
+            assertEquals(i, sets.find(i));
+        assertFalse(sets.isConnected(0, 1));
+    }
+
+    @Test
+    public void testDisjointSetUnion() {
+        final DisjointSet sets = new DisjointSet(SIZE);
+        assertTrue(sets.union(0, 1));
+        assertTrue(sets.union(2, 3));
+        assertFalse(sets.union(1, 0));
+        assertEquals(SIZE-2, sets.getCount());
+        assertTrue(sets.isConnected(0, 1));
+        assertFalse(sets.isConnected(1, 2));
+        assertTrue(sets.union(1, 3));
+        assertTrue(sets.isConnected(0, 2));
+        assertEquals(sets.find(0), sets.find(3));
+        assertEquals(SIZE-3, sets.getCount());
+    }
+
+    /**
+     * Merging all elements in random order takes exactly SIZE-1 successful unions.
+     */
+    @Test
+    public void testDisjointSetMergeAll() {
+        final DisjointSet sets = new DisjointSet(SIZE);
+        final RandomStream random = new RandomStream(1);
+        int merged = 0;
+        while (sets.getCount() > 1) {
+            if (sets.union(random.nextIntWithinInterval(0, SIZE-1), random.nextIntWithinInterval(0, SIZE-1)))
+                merged++;
+        }
+        assertEquals(SIZE-1, merged);
+        for (int i = 1; i < SIZE; i++)
+            assertTrue(sets.isConnected(0, i));
+    }
+
+    @Test
+    public void testConcurrentDisjointSetUnion() {
+        final ConcurrentDisjointSet sets = new ConcurrentDisjointSet(SIZE);
+        for (int i = 0; i < SIZE; i++)
+            assertEquals(i, sets.find(i));
+        assertTrue(sets.union(5, 6));
+        assertFalse(sets.union(6, 5));
+        assertTrue(sets.union(6, 7));
+        assertTrue(sets.isConnected(5, 7));
+        assertFalse(sets.isConnected(4, 5));
+        // the smallest element represents its set
+        assertEquals(5, sets.find(7));
+    }
+
+    /**
+     * Threads merge overlapping ranges of a chain at the same time.
+     * Each merge of two sets must succeed exactly once over all threads.
+     */
+    @Test
+    public void testConcurrentDisjointSetWithThreads() throws InterruptedException {
+        final ConcurrentDisjointSet sets = new ConcurrentDisjointSet(SIZE);
+        final AtomicInteger merged = new AtomicInteger(0);
+        final int threads = 4;
+        final List<Runnable> tasks = new ArrayList<Runnable>(threads);
+        for (int t = 0; t < threads; t++) {
+            final RandomStream random = new RandomStream(t);
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    for (int k = 0; k < 4*SIZE; k++) {
+                        final int i = random.nextIntWithinInterval(0, SIZE-2);
+                        if (sets.union(i, i+1))
+                            merged.incrementAndGet();
+                    }
+                    // make sure the chain is complete
+                    for (int i = 0; i < SIZE-1; i++) {
+                        if (sets.union(i, i+1))
+                            merged.incrementAndGet();
+                    }
+                }
+            });
+        }
+        WorkerPool.runAll(tasks);
+        assertEquals(SIZE-1, merged.get());
+        for (int i = 0; i < SIZE; i++)
+            assertEquals(0, sets.find(i));
+    }
+}
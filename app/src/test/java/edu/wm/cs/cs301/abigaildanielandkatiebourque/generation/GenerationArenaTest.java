@@ -0,0 +1,131 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the GenerationArena hands released objects out again,
+ * within its limits per size and in total, and that builders reuse them.
+ */
+public class GenerationArenaTest {
+    private GenerationArena arena;
+
+    @Before
+    public void setUp() {
+        arena = GenerationArena.getArena();
+        arena.clear();
+    }
+
+    @After
+    public void tearDown() {
+        arena.clear();
+    }
+
+    @Test
+    public void testReleasedObjectsAreReused() {
+        final Floorplan floorplan = new Floorplan(20, 10);
+        final Distance dists = new Distance(20, 10);
+        final int[] ints = new int[200];
+        arena.release(floorplan);
+        arena.release(dists);
+        arena.releaseInts(ints);
+        assertEquals(3, arena.getCount());
+        // other dimensions do not match
+        assertNotSame(floorplan, arena.acquireFloorplan(10, 20));
+        assertSame(floorplan, arena.acquireFloorplan(20, 10));
+        assertSame(dists, arena.acquireDistance(20, 10));
+        assertSame(ints, arena.acquireInts(200));
+        assertEquals(0, arena.getCount());
+        assertEquals(0, arena.getSize());
+        // each object is handed out once
+        assertNotSame(floorplan, arena.acquireFloorplan(20, 10));
+    }
+
+    @Test
+    public void testAtMostMaxPerSize() {
+        for (int i = 0; i <= GenerationArena.MAX_PER_SIZE; i++)
+            arena.release(new Floorplan(20, 10));
+        assertEquals(GenerationArena.MAX_PER_SIZE, arena.getCount());
+        arena.release(new Floorplan(10, 20));
+        assertEquals(GenerationArena.MAX_PER_SIZE + 1, arena.getCount());
+    }
+
+    @Test
+    public void testReleasedTwiceIsKeptOnce() {
+        final Floorplan floorplan = new Floorplan(20, 10);
+        arena.release(floorplan);
+        arena.release(floorplan);
+        assertEquals(1, arena.getCount());
+        assertSame(floorplan, arena.acquireFloorplan(20, 10));
+        assertNotSame(floorplan, arena.acquireFloorplan(20, 10));
+    }
+
+    /**
+     * Objects that do not fit into the budget are left to the garbage collector.
+     */
+    @Test
+    public void testBudget() {
+        final int[] large = new int[(int)(GenerationArena.BUDGET / 4)];
+        arena.releaseInts(large);
+        assertEquals(GenerationArena.BUDGET, arena.getSize());
+        arena.releaseInts(new int[1]);
+        assertEquals(1, arena.getCount());
+        assertSame(large, arena.acquireInts(large.length));
+        assertEquals(0, arena.getSize());
+    }
+
+    /**
+     * A builder takes the floorplan and distances of a released maze for the next maze of that size,
+     * nothing of the old maze is left in the new one.
+     */
+    @Test
+    public void testBuilderReusesReleasedMaze() {
+        final Maze first = build(1);
+        arena.clear(); // drops working arrays of the build
+        arena.release(first);
+        assertEquals(2, arena.getCount());
+        final Maze second = build(2);
+        assertSame(first.getFloorplan(), second.getFloorplan());
+        assertSame(first.getMazedists(), second.getMazedists());
+        final Maze fresh = build(2);
+        assertNotSame(second.getFloorplan(), fresh.getFloorplan());
+        assertEquals(fresh.getFloorplan(), second.getFloorplan());
+        assertArrayEquals(fresh.getMazedists().getAllDistanceValues(), second.getMazedists().getAllDistanceValues());
+    }
+
+    private static Maze build(final int seed) {
+        final Maze[] result = new Maze[1];
+        final MazeFactory factory = new MazeFactory(false);
+        assertTrue(factory.order(new SeededOrder() {
+            @Override
+            public int getSeed() {
+                return seed;
+            }
+            @Override
+            public int getSkillLevel() {
+                return 2;
+            }
+            @Override
+            public Builder getBuilder() {
+                return Builder.DFS;
+            }
+            @Override
+            public boolean isPerfect() {
+                return false;
+            }
+            @Override
+            public void deliver(Maze mazeConfig) {
+                result[0] = mazeConfig;
+            }
+            @Override
+            public void updateProgress(int percentage) {
+            }
+        }));
+        factory.waitTillDelivered();
+        assertNotNull(result[0]);
+        return result[0];
+    }
+}
@@ -0,0 +1,143 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that a GenerationTrace reproduces the floorplan it was recorded for,
+ * both from memory and after a round trip through a file.
+ */
+public class GenerationTraceTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void disableTrace() {
+        GenerationTrace.enabled = false;
+        GenerationTrace.directory = null;
+    }
+
+    private static Maze build(final Order.Builder builder, final int seed) {
+        final Maze[] result = new Maze[1];
+        final MazeFactory factory = new MazeFactory(false);
+        assertTrue(factory.order(new SeededOrder() {
+            @Override
+            public int getSeed() {
+                return seed;
+            }
+            @Override
+            public int getSkillLevel() {
+                return 3;
+            }
+            @Override
+            public Builder getBuilder() {
+                return builder;
+            }
+            @Override
+            public boolean isPerfect() {
+                return false;
+            }
+            @Override
+            public void deliver(Maze mazeConfig) {
+                result[0] = mazeConfig;
+            }
+            @Override
+            public void updateProgress(int percentage) {
+            }
+        }));
+        factory.waitTillDelivered();
+        return result[0];
+    }
+
+    /**
+     * Compares two floorplans cell by cell, except for the visited flag which is not traced.
+     */
+    private static void assertSameLayout(String message, Floorplan expected, Floorplan actual) {
+        assertEquals(message, expected.width, actual.width);
+        assertEquals(message, expected.height, actual.height);
+        for (int x = 0; x < expected.width; x++) {
+            for (int y = 0; y < expected.height; y++) {
+                assertEquals(message + " at " + x + "," + y,
+                        expected.getValueOfCell(x, y) & ~Floorplan.CW_VISITED,
+                        actual.getValueOfCell(x, y) & ~Floorplan.CW_VISITED);
+            }
+        }
+    }
+
+    @Test
+    public void testReplayReproducesFloorplan() {
+        GenerationTrace.enabled = true;
+        for (Order.Builder builder : Order.Builder.values()) {
+            final Floorplan floorplan = build(builder, 11).getFloorplan();
+            final GenerationTrace trace = floorplan.getTrace();
+            assertNotNull(builder.toString(), trace);
+            assertTrue(builder.toString(), trace.size() > 0);
+            assertSameLayout(builder.toString(), floorplan, trace.replay());
+        }
+    }
+
+    @Test
+    public void testSaveLoadReplay() throws IOException {
+        GenerationTrace.enabled = true;
+        for (Order.Builder builder : Order.Builder.values()) {
+            final Floorplan floorplan = build(builder, 12).getFloorplan();
+            final File file = File.createTempFile("trace", ".bin");
+            try {
+                floorplan.getTrace().save(file);
+                final GenerationTrace loaded = GenerationTrace.load(file);
+                assertEquals(builder.toString(), floorplan.getTrace().size(), loaded.size());
+                assertSameLayout(builder.toString(), floorplan, loaded.replay());
+                assertSameLayout(builder.toString(), floorplan, GenerationTrace.replay(file));
+            }
+            finally {
+                file.delete();
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadRejectsOtherFiles() throws IOException {
+        final File file = File.createTempFile("trace", ".bin");
+        try {
+            GenerationTrace.load(file);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testNoTraceUnlessEnabled() {
+        assertNull(build(Order.Builder.DFS, 13).getFloorplan().getTrace());
+    }
+
+    /**
+     * With a trace directory, the builder saves the trace of each delivered floorplan.
+     */
+    @Test
+    public void testBuilderSavesToDirectory() throws IOException {
+        GenerationTrace.enabled = true;
+        GenerationTrace.directory = folder.getRoot();
+        final Floorplan first = build(Order.Builder.Prim, 14).getFloorplan();
+        final File[] files = folder.getRoot().listFiles();
+        assertEquals(1, files.length);
+        assertSameLayout("saved trace", first, GenerationTrace.replay(files[0]));
+        build(Order.Builder.Eller, 15);
+        assertEquals(2, folder.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void testNothingSavedWithoutDirectory() {
+        GenerationTrace.enabled = true;
+        build(Order.Builder.DFS, 16);
+        assertNull(GenerationTrace.directory);
+        assertEquals(0, folder.getRoot().listFiles().length);
+    }
+}
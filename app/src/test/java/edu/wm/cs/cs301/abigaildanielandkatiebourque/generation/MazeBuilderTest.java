@@ -0,0 +1,198 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the mazes that the builders deliver through the MazeFactory:
+ * perfect mazes are spanning trees of the cells and a seed determines the maze,
+ * whatever the number of worker threads.
+ */
+public class MazeBuilderTest {
+    private static final int SEED = 7;
+
+    /**
+     * Seeded order for a maze of the given dimensions that keeps the delivered maze.
+     */
+    private static class TestOrder implements SeededOrder, DimensionedOrder {
+        private final Builder builder;
+        private final int width;
+        private final int height;
+        private final boolean perfect;
+        private final int rooms;
+        private final int seed;
+        private Maze maze;
+
+        TestOrder(Builder builder, int width, int height, boolean perfect, int rooms, int seed) {
+            this.builder = builder;
+            this.width = width;
+            this.height = height;
+            this.perfect = perfect;
+            this.rooms = rooms;
+            this.seed = seed;
+        }
+        @Override
+        public int getSeed() {
+            return seed;
+        }
+        @Override
+        public int getSkillLevel() {
+            return 0;
+        }
+        @Override
+        public Builder getBuilder() {
+            return builder;
+        }
+        @Override
+        public boolean isPerfect() {
+            return perfect;
+        }
+        @Override
+        public int getWidth() {
+            return width;
+        }
+        @Override
+        public int getHeight() {
+            return height;
+        }
+        @Override
+        public int getRoomCount() {
+            return rooms;
+        }
+        @Override
+        public void deliver(Maze mazeConfig) {
+            maze = mazeConfig;
+        }
+        @Override
+        public void updateProgress(int percentage) {
+        }
+    }
+
+    private static Maze build(TestOrder order) {
+        final MazeFactory factory = new MazeFactory(false);
+        assertTrue(factory.order(order));
+        factory.waitTillDelivered();
+        assertNotNull("no maze for " + order.getBuilder(), order.maze);
+        return order.maze;
+    }
+
+    @After
+    public void resetWorkerPool() {
+        WorkerPool.setParallelism(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Checks that the builder delivers a perfect maze if asked for one:
+     * all cells are connected and there is no loop,
+     * i.e. the open wallboards form a spanning tree of the cells.
+     */
+    private static void assertPerfectMaze(Order.Builder builder) {
+        final Maze maze = build(new TestOrder(builder, 97, 61, true, 0, SEED));
+        final int width = maze.getWidth();
+        final int height = maze.getHeight();
+        final Floorplan floorplan = maze.getFloorplan();
+        final DisjointSet sets = new DisjointSet(width*height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int cell = y*width + x;
+                if (x < width-1 && floorplan.hasNoWall(x, y, CardinalDirection.East)) {
+                    assertTrue(builder + " has a loop at " + x + "," + y, sets.union(cell, cell+1));
+                }
+                if (y < height-1 && floorplan.hasNoWall(x, y, CardinalDirection.South)) {
+                    assertTrue(builder + " has a loop at " + x + "," + y, sets.union(cell, cell+width));
+                }
+                assertTrue(builder + " cell " + x + "," + y + " is unreachable",
+                        maze.getDistanceToExit(x, y) < Distance.INFINITY);
+            }
+        }
+        assertEquals(builder + " is not connected", 1, sets.getCount());
+    }
+
+    @Test
+    public void testPerfectMazeKruskal() {
+        assertPerfectMaze(Order.Builder.Kruskal);
+    }
+
+    /**
+     * The maze spans several tiles, so the seams between tiles are checked as well.
+     */
+    @Test
+    public void testPerfectMazeTiled() {
+        assertPerfectMaze(Order.Builder.Tiled);
+    }
+
+    /**
+     * Eller's algorithm only keeps the sets of one row, the last row must join them all.
+     */
+    @Test
+    public void testPerfectMazeEller() {
+        assertPerfectMaze(Order.Builder.Eller);
+    }
+
+    @Test
+    public void testPerfectMazePrim() {
+        assertPerfectMaze(Order.Builder.Prim);
+    }
+
+    @Test
+    public void testPerfectMazeDFS() {
+        assertPerfectMaze(Order.Builder.DFS);
+    }
+
+    /**
+     * The same seed gives the same maze, a different seed a different one.
+     */
+    @Test
+    public void testSameSeedSameMaze() {
+        for (Order.Builder builder : Order.Builder.values()) {
+            final Maze first = build(new TestOrder(builder, 40, 30, false, 3, SEED));
+            final Maze second = build(new TestOrder(builder, 40, 30, false, 3, SEED));
+            final Maze other = build(new TestOrder(builder, 40, 30, false, 3, SEED+1));
+            assertEquals(builder.toString(), first.getFloorplan(), second.getFloorplan());
+            assertArrayEquals(builder.toString(), first.getStartingPosition(), second.getStartingPosition());
+            assertNotEquals(builder.toString(), first.getFloorplan(), other.getFloorplan());
+        }
+    }
+
+    /**
+     * Builders that split their work into tasks for the worker pool deliver
+     * the same maze for a given seed, whatever the number of worker threads.
+     * The maze is large enough for several tiles, bands and areas.
+     */
+    @Test
+    public void testSameMazeForAnyNumberOfThreads() {
+        for (Order.Builder builder : Order.Builder.values()) {
+            WorkerPool.setParallelism(1);
+            final Maze single = build(new TestOrder(builder, 300, 200, false, 5, SEED));
+            WorkerPool.setParallelism(4);
+            final Maze parallel = build(new TestOrder(builder, 300, 200, false, 5, SEED));
+            assertEquals(builder.toString(), single.getFloorplan(), parallel.getFloorplan());
+            assertArrayEquals(builder.toString(), single.getStartingPosition(), parallel.getStartingPosition());
+            assertArrayEquals(builder.toString(), single.getMazedists().getAllDistanceValues(),
+                    parallel.getMazedists().getAllDistanceValues());
+        }
+    }
+
+    /**
+     * The maze is larger than PARALLEL_AREA, so sub-areas are divided on several threads.
+     */
+    @Test
+    public void testPerfectMazeRecursiveDivision() {
+        assertPerfectMaze(Order.Builder.RecursiveDivision);
+    }
+
+    @Test
+    public void testPerfectMazeSidewinder() {
+        assertPerfectMaze(Order.Builder.Sidewinder);
+    }
+
+    /**
+     * The maze has more cells than CHUNK_SIZE, so the cheapest edges are found in several chunks.
+     */
+    @Test
+    public void testPerfectMazeBoruvka() {
+        assertPerfectMaze(Order.Builder.Boruvka);
+    }
+}
@@ -0,0 +1,147 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the MazeCache serves repeated orders, evicts the least recently used
+ * mazes to stay within its budget and keeps the arena from recycling its mazes.
+ */
+public class MazeCacheTest {
+
+    /**
+     * Seeded order for skill level 0 that keeps the delivered maze.
+     */
+    private static class TestOrder implements SeededOrder {
+        private final int seed;
+        Maze maze;
+
+        TestOrder(int seed) {
+            this.seed = seed;
+        }
+        @Override
+        public int getSeed() {
+            return seed;
+        }
+        @Override
+        public int getSkillLevel() {
+            return 0;
+        }
+        @Override
+        public Builder getBuilder() {
+            return Builder.DFS;
+        }
+        @Override
+        public boolean isPerfect() {
+            return false;
+        }
+        @Override
+        public void deliver(Maze mazeConfig) {
+            maze = mazeConfig;
+        }
+        @Override
+        public void updateProgress(int percentage) {
+        }
+    }
+
+    private static Maze build(TestOrder order, MazeCache cache) {
+        final MazeFactory factory = new MazeFactory(false);
+        factory.setCache(cache);
+        assertTrue(factory.order(order));
+        factory.waitTillDelivered();
+        assertNotNull(order.maze);
+        return order.maze;
+    }
+
+    @Test
+    public void testRepeatedOrderIsServedFromCache() {
+        final MazeCache cache = new MazeCache(MazeCache.DEFAULT_BUDGET);
+        final Maze first = build(new TestOrder(1), cache);
+        assertEquals(1, cache.getCount());
+        assertSame(first, build(new TestOrder(1), cache));
+        assertNotSame(first, build(new TestOrder(2), cache));
+        assertEquals(2, cache.getCount());
+    }
+
+    /**
+     * Filling the cache beyond its budget evicts the maze that was used least recently.
+     */
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        final MazeCache unlimited = new MazeCache(Long.MAX_VALUE);
+        final TestOrder[] orders = { new TestOrder(1), new TestOrder(2), new TestOrder(3) };
+        long total = 0;
+        for (TestOrder order : orders)
+            total += MazeCache.estimateSize(build(order, unlimited));
+
+        final MazeCache cache = new MazeCache(total - 1);
+        cache.put(orders[0], orders[0].maze);
+        cache.put(orders[1], orders[1].maze);
+        assertSame(orders[0].maze, cache.get(orders[0])); // 1 is used more recently than 2
+        cache.put(orders[2], orders[2].maze);
+        assertEquals(2, cache.getCount());
+        assertNull(cache.get(orders[1]));
+        assertSame(orders[0].maze, cache.get(orders[0]));
+        assertSame(orders[2].maze, cache.get(orders[2]));
+        assertTrue(cache.getSize() <= cache.getBudget());
+
+        cache.get(orders[0]); // 3 is used less recently than 1
+        cache.setBudget(MazeCache.estimateSize(orders[0].maze));
+        assertEquals(1, cache.getCount());
+        assertSame(orders[0].maze, cache.get(orders[0]));
+    }
+
+    @Test
+    public void testMazeLargerThanBudgetIsNotStored() {
+        final TestOrder order = new TestOrder(1);
+        final Maze maze = build(order, null);
+        final MazeCache cache = new MazeCache(MazeCache.estimateSize(maze) - 1);
+        cache.put(order, maze);
+        assertEquals(0, cache.getCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    /**
+     * The floorplan is a single array, the estimate grows with the number of cells
+     * and not with the number of columns times a header.
+     */
+    @Test
+    public void testEstimateSizeOfFloorplanAndDistances() {
+        final MazeContainer maze = new MazeContainer();
+        maze.setWidth(20);
+        maze.setHeight(10);
+        maze.setFloorplan(new Floorplan(20, 10));
+        maze.setMazedists(new Distance(20, 10));
+        final ArrayList<Wall> walls = new ArrayList<Wall>();
+        walls.add(new Wall(0, 0, 1, 0, 0, 0));
+        maze.setRootnode(new BSPLeaf(walls));
+        maze.setStartingPosition(0, 0);
+        final long tree = MazeCache.NODE_SIZE + MazeCache.OBJECT_HEADER + MazeCache.ARRAY_HEADER
+                + MazeCache.REFERENCE + MazeCache.WALL_SIZE;
+        final long cells = MazeCache.OBJECT_HEADER + MazeCache.ARRAY_HEADER + 4*20*10;
+        final long matrix = MazeCache.OBJECT_HEADER + MazeCache.ARRAY_HEADER
+                + 20*(MazeCache.REFERENCE + MazeCache.ARRAY_HEADER + 4*10);
+        assertEquals(MazeCache.MAZE_SIZE + cells + matrix + tree, MazeCache.estimateSize(maze));
+    }
+
+    /**
+     * A maze in any cache, not only the shared one, is not recycled by the arena
+     * till the cache drops it.
+     */
+    @Test
+    public void testCachedMazeIsNotRecycled() {
+        final MazeCache cache = new MazeCache(MazeCache.DEFAULT_BUDGET);
+        final Maze maze = build(new TestOrder(4), cache);
+        final GenerationArena arena = GenerationArena.getArena();
+        arena.clear();
+        arena.release(maze);
+        assertEquals(0, arena.getCount());
+        cache.clear();
+        arena.release(maze);
+        assertEquals(2, arena.getCount());
+        arena.clear();
+    }
+}
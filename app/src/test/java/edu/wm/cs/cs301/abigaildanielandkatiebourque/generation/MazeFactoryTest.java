@@ -0,0 +1,167 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests a MazeFactory in pool mode: orders are built at the same time
+ * and each handle cancels or waits for its own order.
+ */
+public class MazeFactoryTest {
+
+    /**
+     * Seeded order with explicit dimensions that keeps the delivered maze.
+     */
+    private static class TestOrder implements SeededOrder, DimensionedOrder {
+        private final int width;
+        private final int height;
+        private final int seed;
+        volatile Maze maze;
+
+        TestOrder(int width, int height, int seed) {
+            this.width = width;
+            this.height = height;
+            this.seed = seed;
+        }
+        @Override
+        public int getSeed() {
+            return seed;
+        }
+        @Override
+        public int getSkillLevel() {
+            return 0;
+        }
+        @Override
+        public Builder getBuilder() {
+            return Builder.Kruskal;
+        }
+        @Override
+        public boolean isPerfect() {
+            return false;
+        }
+        @Override
+        public int getWidth() {
+            return width;
+        }
+        @Override
+        public int getHeight() {
+            return height;
+        }
+        @Override
+        public int getRoomCount() {
+            return 2;
+        }
+        @Override
+        public void deliver(Maze mazeConfig) {
+            maze = mazeConfig;
+        }
+        @Override
+        public void updateProgress(int percentage) {
+        }
+    }
+
+    /**
+     * Order that keeps the worker thread busy in its first progress update till it is released.
+     */
+    private static class BlockingOrder extends TestOrder {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingOrder() {
+            super(30, 30, 1);
+        }
+        @Override
+        public void updateProgress(int percentage) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static Maze buildAlone(int width, int height, int seed) {
+        final TestOrder order = new TestOrder(width, height, seed);
+        final MazeFactory factory = new MazeFactory(false);
+        assertTrue(factory.order(order));
+        factory.waitTillDelivered();
+        return order.maze;
+    }
+
+    /**
+     * Orders that are built at the same time get the same mazes as orders built one by one.
+     */
+    @Test
+    public void testPoolModeDeliversEachOrder() {
+        final MazeFactory factory = new MazeFactory(false, 3);
+        final TestOrder[] orders = new TestOrder[6];
+        final OrderHandle[] handles = new OrderHandle[orders.length];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = new TestOrder(40 + i, 30, 100 + i);
+            handles[i] = factory.submit(orders[i]);
+            assertNotNull(handles[i]);
+        }
+        for (int i = 0; i < orders.length; i++) {
+            handles[i].waitTillDelivered();
+            assertTrue(handles[i].isDone());
+            assertNotNull(orders[i].maze);
+            assertEquals(buildAlone(40 + i, 30, 100 + i).getFloorplan(), orders[i].maze.getFloorplan());
+        }
+        assertEquals(0, factory.getOutstandingOrderCount());
+    }
+
+    /**
+     * Cancelling a queued order affects neither the running order nor other queued orders,
+     * and the arrays of the cancelled order go back to the arena.
+     */
+    @Test
+    public void testCancelQueuedOrder() throws InterruptedException {
+        final MazeFactory factory = new MazeFactory(false, 1);
+        final BlockingOrder running = new BlockingOrder();
+        final OrderHandle first = factory.submit(running);
+        running.started.await();
+        final TestOrder cancelled = new TestOrder(57, 43, 2);
+        final TestOrder queued = new TestOrder(50, 20, 3);
+        final OrderHandle second = factory.submit(cancelled);
+        final OrderHandle third = factory.submit(queued);
+
+        final GenerationArena arena = GenerationArena.getArena();
+        arena.clear();
+        second.cancel();
+        assertEquals("floorplan and distances of a cancelled order are not released", 2, arena.getCount());
+
+        running.release.countDown();
+        first.waitTillDelivered();
+        third.waitTillDelivered();
+        second.waitTillDelivered();
+        assertNotNull(running.maze);
+        assertNotNull(queued.maze);
+        assertNull(cancelled.maze);
+        assertTrue(second.isCancelled());
+    }
+
+    /**
+     * An order that is refused by a full queue gives its arrays back to the arena.
+     */
+    @Test
+    public void testRefusedOrder() throws InterruptedException {
+        final MazeFactory factory = new MazeFactory(false, 1);
+        final BlockingOrder running = new BlockingOrder();
+        factory.submit(running);
+        running.started.await();
+        for (int i = 0; i < MazeFactory.MAX_QUEUED_ORDERS; i++)
+            assertNotNull(factory.submit(new TestOrder(20, 20, i)));
+
+        final GenerationArena arena = GenerationArena.getArena();
+        arena.clear();
+        assertNull(factory.submit(new TestOrder(61, 43, 5)));
+        assertEquals("floorplan and distances of a refused order are not released", 2, arena.getCount());
+
+        factory.cancel();
+        running.release.countDown();
+    }
+}
@@ -0,0 +1,103 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the MazePrefetcher serves random orders from its pools,
+ * tells them the seed of the maze and refuses orders for a particular maze.
+ */
+public class MazePrefetcherTest {
+    private static final long TIMEOUT = 30000; // unit is milliseconds
+
+    /**
+     * Order for a random maze of skill level 1 that keeps the maze and its seed.
+     */
+    private static class RandomOrder implements SeedReportingOrder {
+        Integer seed;
+        Maze maze;
+
+        @Override
+        public void setSeed(int seed) {
+            this.seed = seed;
+        }
+        @Override
+        public int getSkillLevel() {
+            return 1;
+        }
+        @Override
+        public Builder getBuilder() {
+            return Builder.Prim;
+        }
+        @Override
+        public boolean isPerfect() {
+            return false;
+        }
+        @Override
+        public void deliver(Maze mazeConfig) {
+            maze = mazeConfig;
+        }
+        @Override
+        public void updateProgress(int percentage) {
+        }
+    }
+
+    /**
+     * Same maze as RandomOrder with the given seed.
+     */
+    private static class SameOrder extends RandomOrder implements SeededOrder {
+        private final int given;
+
+        SameOrder(int seed) {
+            given = seed;
+        }
+        @Override
+        public int getSeed() {
+            return given;
+        }
+    }
+
+    @After
+    public void clearPools() {
+        MazePrefetcher.getPrefetcher().clear();
+    }
+
+    @Test
+    public void testServedSeedGivesSameMaze() throws InterruptedException {
+        final MazePrefetcher prefetcher = MazePrefetcher.getPrefetcher();
+        prefetcher.prefetch(1, Order.Builder.Prim, false);
+        final RandomOrder order = new RandomOrder();
+        final long end = System.currentTimeMillis() + TIMEOUT;
+        while (!prefetcher.take(order)) {
+            assertTrue("pool is not filled in time", System.currentTimeMillis() < end);
+            Thread.sleep(20);
+        }
+        assertNotNull(order.maze);
+        assertNotNull("seed of the served maze is not reported", order.seed);
+
+        final SameOrder same = new SameOrder(order.seed);
+        final MazeFactory factory = new MazeFactory(false);
+        assertTrue(factory.order(same));
+        factory.waitTillDelivered();
+        assertEquals(order.maze.getFloorplan(), same.maze.getFloorplan());
+        assertArrayEquals(order.maze.getStartingPosition(), same.maze.getStartingPosition());
+    }
+
+    @Test
+    public void testSeededOrderIsNotServed() throws InterruptedException {
+        final MazePrefetcher prefetcher = MazePrefetcher.getPrefetcher();
+        prefetcher.prefetch(1, Order.Builder.Prim, false);
+        final long end = System.currentTimeMillis() + TIMEOUT;
+        // wait till the pool holds a maze, then a seeded order must still not get it
+        final RandomOrder probe = new RandomOrder();
+        while (!prefetcher.take(probe)) {
+            assertTrue("pool is not filled in time", System.currentTimeMillis() < end);
+            Thread.sleep(20);
+        }
+        final SameOrder seeded = new SameOrder(5);
+        assertFalse(prefetcher.take(seeded));
+        assertNull(seeded.maze);
+    }
+}
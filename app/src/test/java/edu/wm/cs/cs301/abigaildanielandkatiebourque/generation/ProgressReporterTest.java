@@ -0,0 +1,127 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the progress passed on to an order only increases,
+ * comes at most MAX_UPDATES_PER_SECOND times per second
+ * and does not lose an update that came too early.
+ */
+public class ProgressReporterTest {
+    // a thread may be delayed a little between the check of the interval and the update of the order
+    private static final long TOLERANCE = ProgressReporter.MIN_UPDATE_INTERVAL / 10;
+
+    /**
+     * Order that records each update of the progress and when it came.
+     */
+    private static class RecordingOrder implements SeededOrder {
+        final List<Integer> percentages = new ArrayList<Integer>();
+        final List<Long> times = new ArrayList<Long>();
+
+        @Override
+        public int getSeed() {
+            return 21;
+        }
+        @Override
+        public int getSkillLevel() {
+            return 9;
+        }
+        @Override
+        public Builder getBuilder() {
+            return Builder.Prim;
+        }
+        @Override
+        public boolean isPerfect() {
+            return false;
+        }
+        @Override
+        public void deliver(Maze mazeConfig) {
+        }
+        @Override
+        public synchronized void updateProgress(int percentage) {
+            percentages.add(percentage);
+            times.add(System.nanoTime());
+        }
+    }
+
+    /**
+     * Checks that percentages increase and that updates are at least the min interval apart.
+     * @param last number of updates at the end that are not rate limited
+     */
+    private static void assertMonotonicAndRateLimited(RecordingOrder order, int last) {
+        for (int i = 1; i < order.percentages.size(); i++) {
+            assertTrue("progress goes from " + order.percentages.get(i-1) + " to " + order.percentages.get(i),
+                    order.percentages.get(i-1) < order.percentages.get(i));
+            if (i < order.percentages.size() - last)
+                assertTrue("updates are too close",
+                        order.times.get(i) - order.times.get(i-1) >= ProgressReporter.MIN_UPDATE_INTERVAL - TOLERANCE);
+        }
+    }
+
+    /**
+     * Stages that report as fast as they can get at most one update per interval through.
+     */
+    @Test
+    public void testUpdatesAreMonotonicAndRateLimited() {
+        final RecordingOrder order = new RecordingOrder();
+        final ProgressReporter reporter = new ProgressReporter(order, 1000000, true);
+        final long start = System.nanoTime();
+        for (ProgressReporter.Stage stage : ProgressReporter.Stage.values()) {
+            reporter.startStage(stage);
+            final long end = System.nanoTime() + 150000000L; // 150 ms per stage
+            while (System.nanoTime() < end) {
+                final long now = System.nanoTime();
+                reporter.setStageProgress(1.0 - (double)(end - now) / 150000000L);
+            }
+        }
+        final long duration = System.nanoTime() - start;
+        reporter.finish();
+
+        assertFalse(order.percentages.isEmpty());
+        assertMonotonicAndRateLimited(order, 0);
+        assertTrue(order.percentages.size() <= 1 + duration / ProgressReporter.MIN_UPDATE_INTERVAL);
+        final int highest = order.percentages.get(order.percentages.size() - 1);
+        assertTrue(highest <= 99);
+        assertEquals(highest, reporter.getPercentage());
+    }
+
+    /**
+     * An update that comes too early is passed on with the next update after the interval,
+     * even if that one reports less progress.
+     */
+    @Test
+    public void testDroppedUpdateIsPassedOnLater() throws InterruptedException {
+        final RecordingOrder order = new RecordingOrder();
+        final ProgressReporter reporter = new ProgressReporter(order, 1000000, false);
+        reporter.startStage(ProgressReporter.Stage.PATHWAYS);
+        reporter.setStageProgress(0.5);
+        assertEquals(1, order.percentages.size());
+        final int first = order.percentages.get(0);
+        reporter.setStageProgress(1.0); // too early
+        assertEquals(1, order.percentages.size());
+        Thread.sleep(ProgressReporter.MIN_UPDATE_INTERVAL / 1000000 + 10);
+        reporter.setStageProgress(0.0); // e.g. a thread that is behind
+        assertEquals(2, order.percentages.size());
+        assertTrue(order.percentages.get(1) > first);
+        assertEquals((int)order.percentages.get(1), reporter.getPercentage());
+    }
+
+    /**
+     * A build passes on increasing percentages at the limited rate and ends with 100.
+     */
+    @Test
+    public void testBuildReportsProgress() {
+        final RecordingOrder order = new RecordingOrder();
+        final MazeFactory factory = new MazeFactory(false);
+        assertTrue(factory.order(order));
+        factory.waitTillDelivered();
+        assertFalse(order.percentages.isEmpty());
+        assertEquals(100, (int)order.percentages.get(order.percentages.size() - 1));
+        assertMonotonicAndRateLimited(order, 1);
+    }
+}
@@ -0,0 +1,108 @@
+package edu.wm.cs.cs301.abigaildanielandkatiebourque.generation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that RoomIndex answers like a scan over the floorplan,
+ * both when it is built for existing rooms and when rooms are added to it.
+ */
+public class RoomIndexTest {
+    private static final int WIDTH = 41;
+    private static final int HEIGHT = 29;
+
+    private Floorplan floorplan;
+    private RandomStream random;
+
+    @Before
+    public void setUp() {
+        floorplan = new Floorplan(WIDTH, HEIGHT);
+        floorplan.initialize();
+        random = new RandomStream(3);
+    }
+
+    /**
+     * Checks overlaps() against Floorplan.areaOverlapsWithRoom for all areas up to size 5x5.
+     */
+    private void assertSameOverlaps(RoomIndex index) {
+        for (int rw = 1; rw <= 5; rw++)
+            for (int rh = 1; rh <= 5; rh++)
+                for (int ry = 0; ry + rh <= HEIGHT; ry++)
+                    for (int rx = 0; rx + rw <= WIDTH; rx++)
+                        assertEquals("area " + rx + "," + ry + " " + rw + "x" + rh,
+                                floorplan.areaOverlapsWithRoom(rx, ry, rx+rw-1, ry+rh-1),
+                                index.overlaps(rx, ry, rx+rw-1, ry+rh-1));
+    }
+
+    /**
+     * Places rooms of random size at random free positions on floorplan and index.
+     */
+    private void addRandomRooms(RoomIndex index, int rooms) {
+        final int[] position = new int[2];
+        for (int i = 0; i < rooms; i++) {
+            final int rw = random.nextIntWithinInterval(MazeBuilder.MIN_ROOM_DIMENSION, MazeBuilder.MAX_ROOM_DIMENSION);
+            final int rh = random.nextIntWithinInterval(MazeBuilder.MIN_ROOM_DIMENSION, MazeBuilder.MAX_ROOM_DIMENSION);
+            final int free = index.countFreePositions(rw, rh);
+            if (0 == free)
+                continue;
+            assertTrue(index.findFreePosition(rw, rh, random.nextIntWithinInterval(0, free-1), position));
+            final int rxl = position[0] + rw - 1;
+            final int ryl = position[1] + rh - 1;
+            assertFalse(floorplan.areaOverlapsWithRoom(position[0], position[1], rxl, ryl));
+            floorplan.markArea(position[0], position[1], rxl, ryl);
+            index.addRoom(position[0], position[1], rxl, ryl);
+        }
+    }
+
+    @Test
+    public void testEmptyFloorplan() {
+        final RoomIndex index = new RoomIndex(floorplan);
+        assertSameOverlaps(index);
+        // any position that keeps a cell to the outside border is free
+        assertEquals((WIDTH-4) * (HEIGHT-5), index.countFreePositions(3, 4));
+    }
+
+    @Test
+    public void testAddRoom() {
+        final RoomIndex index = new RoomIndex(floorplan);
+        addRandomRooms(index, 6);
+        assertSameOverlaps(index);
+    }
+
+    @Test
+    public void testIndexForExistingRooms() {
+        addRandomRooms(new RoomIndex(floorplan), 6);
+        final RoomIndex index = new RoomIndex(floorplan);
+        assertSameOverlaps(index);
+        addRandomRooms(index, 3);
+        assertSameOverlaps(index);
+    }
+
+    /**
+     * Free positions are counted and enumerated row by row like a scan over the floorplan.
+     */
+    @Test
+    public void testFreePositions() {
+        final RoomIndex index = new RoomIndex(floorplan);
+        addRandomRooms(index, 5);
+        final int[] position = new int[2];
+        for (int rw = MazeBuilder.MIN_ROOM_DIMENSION; rw <= MazeBuilder.MAX_ROOM_DIMENSION; rw++) {
+            for (int rh = MazeBuilder.MIN_ROOM_DIMENSION; rh <= MazeBuilder.MAX_ROOM_DIMENSION; rh++) {
+                int n = 0;
+                for (int ry = 1; ry <= HEIGHT-rh-1; ry++) {
+                    for (int rx = 1; rx <= WIDTH-rw-1; rx++) {
+                        if (floorplan.areaOverlapsWithRoom(rx, ry, rx+rw-1, ry+rh-1))
+                            continue;
+                        assertTrue(index.findFreePosition(rw, rh, n, position));
+                        assertArrayEquals(new int[] {rx, ry}, position);
+                        n++;
+                    }
+                }
+                assertEquals(n, index.countFreePositions(rw, rh));
+                assertFalse(index.findFreePosition(rw, rh, n, position));
+            }
+        }
+    }
+}